@@ -0,0 +1,42 @@
+package ma.ju.intellij.builder.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import ma.ju.intellij.builder.psi.BuilderDescriptor;
+import ma.ju.intellij.builder.psi.BuilderTypeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Measures the derivation of setter names from components and of components from accessors. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NamingBenchmark {
+  @Param({"set", "with", ""})
+  public String prefix;
+
+  @Param({"name", "createdAt", "isEnabled"})
+  public String component;
+
+  private String accessor;
+
+  @Setup
+  public void setUp() {
+    accessor = BuilderTypeGenerator.methodName(prefix.isEmpty() ? "get" : prefix, component);
+  }
+
+  @Benchmark
+  public String methodName() {
+    return BuilderTypeGenerator.methodName(prefix, component);
+  }
+
+  @Benchmark
+  public String getName() {
+    return BuilderDescriptor.getName(accessor);
+  }
+}
@@ -0,0 +1,81 @@
+package ma.ju.intellij.builder.benchmark;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.Modifier;
+import ma.ju.intellij.builder.ide.BuilderOption;
+import ma.ju.intellij.builder.psi.BuilderGenerator;
+import ma.ju.intellij.builder.psi.BuilderSettings;
+import ma.ju.intellij.builder.psi.BuilderTypeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures rendering the code the builder generator emits for a component before parsing it into
+ * PSI: the setter of the builder and the assignment of the record constructor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RenderingBenchmark {
+  private static final ClassName BUILDER = ClassName.bestGuess("Builder");
+
+  @Param({"string", "list", "long"})
+  public String kind;
+
+  @Param({"false", "true"})
+  public boolean notNull;
+
+  private TypeName type;
+  private BuilderSettings settings;
+
+  @Setup
+  public void setup() {
+    type =
+        switch (kind) {
+          case "list" -> ParameterizedTypeName.get(List.class, String.class);
+          case "long" -> TypeName.LONG;
+          default -> ClassName.get(String.class);
+        };
+    settings =
+        new BuilderSettings(
+            EnumSet.of(
+                BuilderOption.WITH_IMMUTABLE_COLLECTIONS, BuilderOption.WITH_NULL_CHECKED_COPIES));
+  }
+
+  @Benchmark
+  public String renderSetter() {
+    return MethodSpec.methodBuilder(BuilderTypeGenerator.methodName("set", "value"))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(BUILDER)
+        .addParameter(ParameterSpec.builder(type, "value").build())
+        .addCode(
+            BuilderTypeGenerator.setterBody(
+                "value", type, notNull, !type.isPrimitive() && notNull))
+        .build()
+        .toString();
+  }
+
+  @Benchmark
+  public String renderConstructorStatement() {
+    CodeBlock value = CodeBlock.of("$L", "value");
+    if (BuilderTypeGenerator.isCollection(type)) {
+      TypeName rawType = type instanceof ParameterizedTypeName pt ? pt.rawType : type;
+      value = BuilderGenerator.immutableCopy(value, rawType, notNull, settings);
+    }
+    return CodeBlock.builder().addStatement("this.$L = $L", "value", value).build().toString();
+  }
+}
@@ -0,0 +1,59 @@
+package ma.ju.intellij.builder.benchmark;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import java.util.concurrent.TimeUnit;
+import ma.ju.intellij.builder.psi.BuilderTypeGenerator;
+import ma.ju.intellij.builder.psi.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Measures the classification of component types and the computation of field signatures. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TypeNameBenchmark {
+  @Param({"string", "int", "list", "map"})
+  public String kind;
+
+  private TypeName type;
+
+  @Setup
+  public void setUp() {
+    type =
+        switch (kind) {
+          case "string" -> ClassName.get(String.class);
+          case "int" -> TypeName.INT;
+          case "list" ->
+              ParameterizedTypeName.get(
+                  ClassName.get("java.util", "List"), ClassName.get(String.class));
+          default ->
+              ParameterizedTypeName.get(
+                  ClassName.get("java.util", "Map"),
+                  ClassName.get(String.class),
+                  ClassName.get(Long.class));
+        };
+  }
+
+  @Benchmark
+  public boolean isCollection() {
+    return BuilderTypeGenerator.isCollection(type);
+  }
+
+  @Benchmark
+  public boolean isString() {
+    return BuilderTypeGenerator.isString(type);
+  }
+
+  @Benchmark
+  public String signature() {
+    return Field.signature("com.example.Person.Builder", "private", type, "value");
+  }
+}
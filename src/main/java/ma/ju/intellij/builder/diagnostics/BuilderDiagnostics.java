@@ -0,0 +1,196 @@
+package ma.ju.intellij.builder.diagnostics;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects call counts, latencies, visited PSI nodes and cache hit rates of the plugin's
+ * inspection and generation entry points. Recording is off until enabled from the diagnostics tool
+ * window; while off every method returns after reading a volatile flag and {@link #start()} skips
+ * the clock. The latency percentiles are computed over the last {@value #SAMPLES} calls.
+ */
+@Service(Service.Level.APP)
+public final class BuilderDiagnostics {
+  public static final String INSPECTION_VISIT = "inspection.visit";
+  public static final String PROCESS_MISSING_FIELDS = "inspection.processMissingFields";
+  public static final String DESCRIPTOR = "inspection.descriptorFor";
+  public static final String SUMMARY = "inspection.summaryOf";
+  public static final String MANDATORY_FIELDS = "inspection.mandatoryFields";
+  public static final String GENERATE_PLAN = "generator.plan";
+  public static final String GENERATE_APPLY = "generator.apply";
+  public static final String DELETE = "generator.delete";
+  public static final String FORMAT = "generator.formatRecordCode";
+
+  private static final int SAMPLES = 1024;
+
+  private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+  private volatile boolean enabled;
+
+  /**
+   * The figures of an operation at the time of the snapshot. Latencies are in milliseconds and
+   * {@code cacheAccesses} counts the lookups of the cached value the operation computes.
+   */
+  public record Snapshot(
+      String operation,
+      long calls,
+      double totalMillis,
+      double p50Millis,
+      double p90Millis,
+      double p99Millis,
+      long nodes,
+      long cacheAccesses,
+      long cacheMisses) {
+    /** Returns the share of cache lookups served without recomputing, or -1 without lookups. */
+    public double cacheHitRate() {
+      return cacheAccesses == 0 ? -1 : (double) (cacheAccesses - cacheMisses) / cacheAccesses;
+    }
+  }
+
+  public static BuilderDiagnostics getInstance() {
+    return ApplicationManager.getApplication().getService(BuilderDiagnostics.class);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** Returns the start time to pass to {@link #record}, or 0 while recording is off. */
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /** Records a call of the operation that started at the given {@link #start()}. */
+  public void record(String operation, long startNanos) {
+    // a call started while recording was off has no start time
+    if (enabled && startNanos != 0) {
+      metric(operation).record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /** Adds the number of PSI nodes visited by a call of the operation. */
+  public void visited(String operation, int nodes) {
+    if (enabled) {
+      metric(operation).nodes.add(nodes);
+    }
+  }
+
+  /** Records a lookup of the value cached by the operation. */
+  public void cacheAccess(String operation) {
+    if (enabled) {
+      metric(operation).cacheAccesses.increment();
+    }
+  }
+
+  /** Records that the value cached by the operation had to be computed. */
+  public void cacheMiss(String operation) {
+    if (enabled) {
+      metric(operation).cacheMisses.increment();
+    }
+  }
+
+  public void reset() {
+    metrics.clear();
+  }
+
+  public List<Snapshot> snapshot() {
+    List<Snapshot> snapshots = new ArrayList<>(metrics.size());
+    metrics.forEach((operation, metric) -> snapshots.add(metric.snapshot(operation)));
+    snapshots.sort(Comparator.comparing(Snapshot::operation));
+    return snapshots;
+  }
+
+  /** Returns the current snapshot as a JSON document to attach to bug reports. */
+  public String toJson() {
+    StringBuilder json = new StringBuilder("{\n  \"operations\": [");
+    List<Snapshot> snapshots = snapshot();
+    for (int i = 0; i < snapshots.size(); i++) {
+      Snapshot snapshot = snapshots.get(i);
+      json.append(i > 0 ? "," : "")
+          .append("\n    {\"operation\": \"")
+          .append(snapshot.operation())
+          .append("\", \"calls\": ")
+          .append(snapshot.calls())
+          .append(", \"totalMillis\": ")
+          .append(format(snapshot.totalMillis()))
+          .append(", \"p50Millis\": ")
+          .append(format(snapshot.p50Millis()))
+          .append(", \"p90Millis\": ")
+          .append(format(snapshot.p90Millis()))
+          .append(", \"p99Millis\": ")
+          .append(format(snapshot.p99Millis()))
+          .append(", \"nodes\": ")
+          .append(snapshot.nodes())
+          .append(", \"cacheAccesses\": ")
+          .append(snapshot.cacheAccesses())
+          .append(", \"cacheMisses\": ")
+          .append(snapshot.cacheMisses())
+          .append('}');
+    }
+    return json.append("\n  ]\n}\n").toString();
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.3f", value);
+  }
+
+  private Metric metric(String operation) {
+    return metrics.computeIfAbsent(operation, it -> new Metric());
+  }
+
+  private static final class Metric {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder cacheAccesses = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    private final AtomicLong recorded = new AtomicLong();
+
+    void record(long nanos) {
+      calls.increment();
+      totalNanos.add(nanos);
+      samples.set((int) (recorded.getAndIncrement() % SAMPLES), nanos);
+    }
+
+    Snapshot snapshot(String operation) {
+      // concurrent calls may overwrite a few samples while they are copied
+      long[] sorted = new long[(int) Math.min(recorded.get(), SAMPLES)];
+      for (int i = 0; i < sorted.length; i++) {
+        sorted[i] = samples.get(i);
+      }
+      Arrays.sort(sorted);
+      return new Snapshot(
+          operation,
+          calls.sum(),
+          totalNanos.sum() / 1e6,
+          percentile(sorted, 0.50),
+          percentile(sorted, 0.90),
+          percentile(sorted, 0.99),
+          nodes.sum(),
+          cacheAccesses.sum(),
+          cacheMisses.sum());
+    }
+
+    private static double percentile(long[] sorted, double rank) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(rank * sorted.length) - 1;
+      return sorted[Math.max(index, 0)] / 1e6;
+    }
+  }
+}
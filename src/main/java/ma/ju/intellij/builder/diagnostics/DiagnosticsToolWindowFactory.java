@@ -0,0 +1,145 @@
+package ma.ju.intellij.builder.diagnostics;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.DumbAwareToggleAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.table.JBTable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import javax.swing.table.DefaultTableModel;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The "Record Builder Diagnostics" tool window, listing the figures collected by {@link
+ * BuilderDiagnostics} with actions to start or stop recording and to refresh, reset and export the
+ * figures.
+ */
+public class DiagnosticsToolWindowFactory implements ToolWindowFactory, DumbAware {
+  private static final String[] COLUMNS = {
+    "Operation", "Calls", "Total ms", "p50 ms", "p90 ms", "p99 ms", "Nodes", "Cache hits"
+  };
+
+  @Override
+  public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+    DefaultTableModel model =
+        new DefaultTableModel(COLUMNS, 0) {
+          @Override
+          public boolean isCellEditable(int row, int column) {
+            return false;
+          }
+        };
+    refresh(model);
+
+    DefaultActionGroup group = new DefaultActionGroup();
+    group.add(
+        new DumbAwareToggleAction(
+            "Record", "Record the diagnostics of the plugin", AllIcons.Actions.Execute) {
+          @Override
+          public boolean isSelected(@NotNull AnActionEvent e) {
+            return BuilderDiagnostics.getInstance().isEnabled();
+          }
+
+          @Override
+          public void setSelected(@NotNull AnActionEvent e, boolean state) {
+            BuilderDiagnostics.getInstance().setEnabled(state);
+          }
+
+          @Override
+          public @NotNull ActionUpdateThread getActionUpdateThread() {
+            return ActionUpdateThread.BGT;
+          }
+        });
+    group.add(
+        new DumbAwareAction("Refresh", "Refresh the diagnostics", AllIcons.Actions.Refresh) {
+          @Override
+          public void actionPerformed(@NotNull AnActionEvent e) {
+            refresh(model);
+          }
+        });
+    group.add(
+        new DumbAwareAction("Reset", "Reset the diagnostics", AllIcons.Actions.GC) {
+          @Override
+          public void actionPerformed(@NotNull AnActionEvent e) {
+            BuilderDiagnostics.getInstance().reset();
+            refresh(model);
+          }
+        });
+    group.add(
+        new DumbAwareAction(
+            "Export as JSON", "Export the diagnostics as JSON", AllIcons.ToolbarDecorator.Export) {
+          @Override
+          public void actionPerformed(@NotNull AnActionEvent e) {
+            export(project);
+          }
+        });
+
+    SimpleToolWindowPanel panel = new SimpleToolWindowPanel(true, true);
+    ActionToolbar toolbar =
+        ActionManager.getInstance().createActionToolbar("RecordBuilderDiagnostics", group, true);
+    toolbar.setTargetComponent(panel);
+    panel.setToolbar(toolbar.getComponent());
+    panel.setContent(ScrollPaneFactory.createScrollPane(new JBTable(model)));
+
+    Content content = ContentFactory.getInstance().createContent(panel, "", false);
+    toolWindow.getContentManager().addContent(content);
+  }
+
+  private static void refresh(DefaultTableModel model) {
+    model.setRowCount(0);
+    for (BuilderDiagnostics.Snapshot snapshot : BuilderDiagnostics.getInstance().snapshot()) {
+      double hitRate = snapshot.cacheHitRate();
+      model.addRow(
+          new Object[] {
+            snapshot.operation(),
+            snapshot.calls(),
+            format(snapshot.totalMillis()),
+            format(snapshot.p50Millis()),
+            format(snapshot.p90Millis()),
+            format(snapshot.p99Millis()),
+            snapshot.nodes(),
+            hitRate < 0 ? "" : String.format(Locale.ROOT, "%.1f%%", hitRate * 100)
+          });
+    }
+  }
+
+  private static String format(double millis) {
+    return String.format(Locale.ROOT, "%.2f", millis);
+  }
+
+  private static void export(Project project) {
+    FileSaverDescriptor descriptor =
+        new FileSaverDescriptor(
+            "Export Record Builder Diagnostics", "Save the diagnostics as a JSON file", "json");
+    VirtualFileWrapper wrapper =
+        FileChooserFactory.getInstance()
+            .createSaveFileDialog(descriptor, project)
+            .save((Path) null, "record-builder-diagnostics.json");
+    if (wrapper == null) {
+      return;
+    }
+    try {
+      Files.writeString(wrapper.getFile().toPath(), BuilderDiagnostics.getInstance().toJson());
+    } catch (IOException e) {
+      Messages.showErrorDialog(project, e.getMessage(), "Export Record Builder Diagnostics");
+    }
+  }
+}
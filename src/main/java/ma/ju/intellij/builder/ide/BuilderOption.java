@@ -1,7 +1,7 @@
 package ma.ju.intellij.builder.ide;
 
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public enum BuilderOption {
@@ -38,7 +38,16 @@ public enum BuilderOption {
   TO_STRING_METHOD_GENERIC("toStringMethodGeneric", false),
 
   WITH_RECORD_VALIDATION_STATEMENTS("withRecordValidationStatements"),
-  WITH_IMMUTABLE_COLLECTIONS("withImmutableCollections");
+  WITH_IMMUTABLE_COLLECTIONS("withImmutableCollections"),
+  WITH_NULL_CHECKED_COPIES("withNullCheckedCopies");
+
+  private static final Map<String, BuilderOption> BY_PROPERTY = new HashMap<>();
+
+  static {
+    for (BuilderOption option : values()) {
+      BY_PROPERTY.putIfAbsent(option.property(), option);
+    }
+  }
 
   private final String property;
   private final Boolean booleanProperty;
@@ -64,6 +73,6 @@ public enum BuilderOption {
     if (value == null || value.isBlank()) {
       return Optional.empty();
     }
-    return Arrays.stream(values()).filter(it -> Objects.equals(it.property(), value)).findFirst();
+    return Optional.ofNullable(BY_PROPERTY.get(value));
   }
 }
@@ -6,7 +6,9 @@ import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.EditorModificationUtil;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
@@ -14,8 +16,8 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.util.PsiTreeUtil;
 
-import java.util.Arrays;
 import java.util.List;
+import ma.ju.intellij.builder.index.BuilderIndex;
 import ma.ju.intellij.builder.psi.BuilderGenerator;
 import ma.ju.intellij.builder.psi.BuilderSettings;
 import ma.ju.intellij.builder.psi.Field;
@@ -27,24 +29,27 @@ public class DeleteBuilderHandler implements LanguageCodeInsightActionHandler {
     return false;
   }
 
+  /**
+   * Returns {@code true} if the class at the caret declares a builder. For a class with a
+   * qualified name the {@link BuilderIndex} entries of the file answer this, otherwise its inner
+   * classes are looked up.
+   */
   @Override
   public boolean isValidFor(Editor editor, PsiFile psiFile) {
-    if (!(psiFile instanceof PsiJavaFile)) {
-      return false;
-    }
-    if (editor.getProject() == null) {
+    Project project = editor.getProject();
+    if (!(psiFile instanceof PsiJavaFile) || project == null) {
       return false;
     }
     PsiClass psiClass = getClass(psiFile, editor);
     if (psiClass == null) {
       return false;
     }
-    for (PsiClass innerClass : psiClass.getInnerClasses()) {
-      if ("Builder".equals(innerClass.getName())) {
-        return true;
-      }
+    VirtualFile file = psiFile.getVirtualFile();
+    String qualifiedName = psiClass.getQualifiedName();
+    if (file != null && qualifiedName != null && !DumbService.isDumb(project)) {
+      return BuilderIndex.buildersIn(project, file).containsKey(qualifiedName);
     }
-    return false;
+    return psiClass.findInnerClassByName("Builder", false) != null;
   }
 
   @Override
@@ -62,11 +67,7 @@ public class DeleteBuilderHandler implements LanguageCodeInsightActionHandler {
     if (!FileDocumentManager.getInstance().requestWriting(editor.getDocument(), project)) {
       return;
     }
-    PsiClass builderClass =
-        Arrays.stream(psiClass.getInnerClasses())
-            .filter(it -> "Builder".equals(it.getName()))
-            .findFirst()
-            .orElse(null);
+    PsiClass builderClass = psiClass.findInnerClassByName("Builder", false);
     List<Field> fields =
         RecordMemberChooser.chooseFieldNames(
             "Select Fields to Be Deleted From The Builder", psiClass, builderClass);
@@ -75,7 +76,7 @@ public class DeleteBuilderHandler implements LanguageCodeInsightActionHandler {
     }
     WriteCommandAction.runWriteCommandAction(
         psiClass.getProject(),
-        () -> BuilderGenerator.delete(psiClass, fields, BuilderSettings.init()));
+        () -> BuilderGenerator.delete(psiClass, fields, BuilderSettings.of(project)));
   }
 
   public static PsiClass getClass(PsiFile file, Editor editor) {
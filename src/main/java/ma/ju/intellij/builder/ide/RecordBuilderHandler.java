@@ -1,6 +1,8 @@
 package ma.ju.intellij.builder.ide;
 
 import com.intellij.lang.LanguageCodeInsightActionHandler;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
@@ -13,9 +15,13 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import ma.ju.intellij.builder.psi.BuilderGenerator;
+import ma.ju.intellij.builder.psi.BuilderSettings;
 import ma.ju.intellij.builder.psi.Field;
+import ma.ju.intellij.builder.psi.GenerationPlan;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.concurrency.CancellablePromise;
 
 import java.util.List;
 
@@ -56,8 +62,23 @@ public class RecordBuilderHandler implements LanguageCodeInsightActionHandler {
     if (fields == null || fields.isEmpty()) {
       return;
     }
-    WriteCommandAction.runWriteCommandAction(
-        psiClass.getProject(), () -> BuilderGenerator.generate(psiClass, fields));
+    generate(project, psiClass, fields, BuilderSettings.of(project));
+  }
+
+  /**
+   * Plans the builder in a background read action and only holds the write lock to apply the
+   * result. The plan expires without writing anything if the class is invalidated before then.
+   */
+  static CancellablePromise<GenerationPlan> generate(
+      Project project, PsiClass psiClass, List<Field> fields, BuilderSettings settings) {
+    return ReadAction.nonBlocking(() -> BuilderGenerator.plan(psiClass, fields, settings))
+        .expireWhen(() -> !psiClass.isValid())
+        .finishOnUiThread(
+            ModalityState.defaultModalityState(),
+            plan ->
+                WriteCommandAction.runWriteCommandAction(
+                    project, () -> BuilderGenerator.apply(plan)))
+        .submit(AppExecutorUtil.getAppExecutorService());
   }
 
   public static PsiClass getClass(PsiFile file, Editor editor) {
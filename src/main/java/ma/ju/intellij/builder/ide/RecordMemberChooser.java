@@ -8,7 +8,6 @@ import com.intellij.codeInsight.NullableNotNullDialog;
 import com.intellij.codeInsight.generation.PsiElementClassMember;
 import com.intellij.codeInsight.generation.PsiFieldMember;
 import com.intellij.ide.util.MemberChooser;
-import com.intellij.ide.util.PropertiesComponent;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.LabeledComponent;
@@ -22,10 +21,11 @@ import java.awt.event.ItemEvent;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 import javax.swing.*;
 import ma.ju.intellij.builder.psi.BuilderGenerator;
+import ma.ju.intellij.builder.psi.BuilderSettings;
+import ma.ju.intellij.builder.psi.BuilderSettingsService;
 import ma.ju.intellij.builder.psi.Field;
 
 public class RecordMemberChooser {
@@ -101,6 +101,11 @@ public class RecordMemberChooser {
             BuilderOption.WITH_IMMUTABLE_COLLECTIONS,
             "Generate Immutable Collections",
             "Generate immutable collections using `.copyOf(...)`"));
+    options.add(
+        new SelectorOption.CheckBox(
+            BuilderOption.WITH_NULL_CHECKED_COPIES,
+            "Copy Nullable Collections Without Optional",
+            "Copy nullable collections using `x == null ? null : List.copyOf(x)`"));
     options.add(
         new SelectorOption.DropDown(
             BuilderOption.NULL_HANDLING,
@@ -146,11 +151,11 @@ public class RecordMemberChooser {
   }
 
   private static JComponent[] buildOptions(Project project) {
-    final PropertiesComponent propertiesComponent = PropertiesComponent.getInstance();
+    final BuilderSettingsService settingsService = BuilderSettingsService.getInstance(project);
     final int optionCount = OPTIONS.size();
     final JComponent[] checkBoxesArray = new JComponent[optionCount + 1];
     for (int i = 0; i < optionCount; i++) {
-      checkBoxesArray[i] = buildOption(propertiesComponent, OPTIONS.get(i));
+      checkBoxesArray[i] = buildOption(settingsService, OPTIONS.get(i));
     }
     checkBoxesArray[OPTIONS.size()] =
         NullableNotNullDialog.createConfigureAnnotationsButton(project);
@@ -158,39 +163,36 @@ public class RecordMemberChooser {
   }
 
   private static JComponent buildOption(
-      final PropertiesComponent propertiesComponent, final SelectorOption selectorOption) {
+      final BuilderSettingsService settingsService, final SelectorOption selectorOption) {
     if (selectorOption instanceof SelectorOption.CheckBox checkBox) {
-      return buildCheckbox(propertiesComponent, checkBox);
+      return buildCheckbox(settingsService, checkBox);
     } else if (selectorOption instanceof SelectorOption.DropDown dropDown) {
-      return buildDropdown(propertiesComponent, dropDown);
+      return buildDropdown(settingsService, dropDown);
     }
     throw new IllegalArgumentException();
   }
 
   private static JComponent buildCheckbox(
-      PropertiesComponent propertiesComponent, SelectorOption.CheckBox selectorOption) {
+      BuilderSettingsService settingsService, SelectorOption.CheckBox selectorOption) {
     final JCheckBox optionCheckBox = new NonFocusableCheckBox(selectorOption.caption());
     optionCheckBox.setToolTipText(selectorOption.tooltip());
 
-    final String optionProperty = selectorOption.option().property();
-    optionCheckBox.setSelected(propertiesComponent.isTrueValue(optionProperty));
+    final BuilderOption option = selectorOption.option();
+    optionCheckBox.setSelected(settingsService.settings().isEnabled(option));
     optionCheckBox.addItemListener(
-        event ->
-            propertiesComponent.setValue(
-                optionProperty, Boolean.toString(optionCheckBox.isSelected())));
+        event -> settingsService.setEnabled(option, optionCheckBox.isSelected()));
     return optionCheckBox;
   }
 
   private static JComponent buildDropdown(
-      PropertiesComponent propertiesComponent, SelectorOption.DropDown selectorOption) {
+      BuilderSettingsService settingsService, SelectorOption.DropDown selectorOption) {
     final ComboBox<SelectorOption.DropDown.Value> comboBox = new ComboBox<>();
     comboBox.setEditable(false);
     comboBox.setRenderer(RENDERER);
     selectorOption.values().forEach(comboBox::addItem);
 
-    comboBox.setSelectedItem(setSelectedComboBoxItem(propertiesComponent, selectorOption));
-    comboBox.addItemListener(
-        event -> setPropertiesComponentValue(propertiesComponent, selectorOption, event));
+    comboBox.setSelectedItem(getSelectedComboBoxItem(settingsService, selectorOption));
+    comboBox.addItemListener(event -> setSelectedOption(settingsService, selectorOption, event));
 
     LabeledComponent<ComboBox<SelectorOption.DropDown.Value>> labeledComponent =
         LabeledComponent.create(comboBox, selectorOption.caption());
@@ -199,21 +201,26 @@ public class RecordMemberChooser {
     return labeledComponent;
   }
 
-  private static SelectorOption.DropDown.Value setSelectedComboBoxItem(
-      PropertiesComponent propertiesComponent, SelectorOption.DropDown selectorOption) {
-    String selectedValue = propertiesComponent.getValue(selectorOption.option().property());
+  private static SelectorOption.DropDown.Value getSelectedComboBoxItem(
+      BuilderSettingsService settingsService, SelectorOption.DropDown selectorOption) {
+    BuilderSettings settings = settingsService.settings();
     return selectorOption.values().stream()
-        .filter(it -> Objects.equals(it.option().property(), selectedValue))
+        .filter(it -> settings.isEnabled(it.option()))
         .findFirst()
         .orElse(selectorOption.values().get(0));
   }
 
-  private static void setPropertiesComponentValue(
-      PropertiesComponent propertiesComponent,
+  private static void setSelectedOption(
+      BuilderSettingsService settingsService,
       SelectorOption.DropDown selectorOption,
       ItemEvent itemEvent) {
+    if (itemEvent.getStateChange() != ItemEvent.SELECTED) {
+      return;
+    }
     SelectorOption.DropDown.Value value = (SelectorOption.DropDown.Value) itemEvent.getItem();
-    propertiesComponent.setValue(selectorOption.option().property(), value.option().property());
+    settingsService.select(
+        selectorOption.values().stream().map(SelectorOption.DropDown.Value::option).toList(),
+        value.option());
   }
 
   public static List<Field> chooseFieldNames(PsiClass recordClass) {
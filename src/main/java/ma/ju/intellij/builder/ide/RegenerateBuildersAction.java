@@ -0,0 +1,282 @@
+package ma.ju.intellij.builder.ide;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileTypes.FileTypeRegistry;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.ReadonlyStatusHandler;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import ma.ju.intellij.builder.index.BuilderIndex;
+import ma.ju.intellij.builder.psi.BuilderClasses;
+import ma.ju.intellij.builder.psi.BuilderGenerator;
+import ma.ju.intellij.builder.psi.BuilderSettings;
+import ma.ju.intellij.builder.psi.Field;
+import ma.ju.intellij.builder.psi.GenerationPlan;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Regenerates the builder of every class with a generated inner {@code Builder} in the selected
+ * files and directories, or in the whole project when nothing is selected. The classes are located
+ * in parallel read actions under a cancellable progress. Each file is then planned in a background
+ * read action and written in a short command of its own, so the UI stays responsive; the commands
+ * share a group and are undone together.
+ */
+public class RegenerateBuildersAction extends AnAction {
+  private static final String TITLE = "Regenerate Builders";
+
+  @Override
+  public @NotNull ActionUpdateThread getActionUpdateThread() {
+    return ActionUpdateThread.BGT;
+  }
+
+  @Override
+  public void update(@NotNull AnActionEvent e) {
+    e.getPresentation().setEnabledAndVisible(e.getProject() != null);
+  }
+
+  @Override
+  public void actionPerformed(@NotNull AnActionEvent e) {
+    Project project = e.getProject();
+    if (project == null) {
+      return;
+    }
+    VirtualFile[] selection = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+    VirtualFile[] roots =
+        selection != null && selection.length > 0
+            ? selection
+            : ProjectRootManager.getInstance(project).getContentSourceRoots();
+
+    ProgressManager.getInstance()
+        .run(
+            new Task.Backgroundable(project, "Finding builders", true) {
+              private Map<VirtualFile, List<SmartPsiElementPointer<PsiClass>>> candidates =
+                  Map.of();
+
+              @Override
+              public void run(@NotNull ProgressIndicator indicator) {
+                candidates = findCandidates(project, roots, indicator);
+              }
+
+              @Override
+              public void onSuccess() {
+                regenerate(project, candidates);
+              }
+            });
+  }
+
+  /** Returns the classes with an inner builder in the given roots, grouped by file. */
+  private static Map<VirtualFile, List<SmartPsiElementPointer<PsiClass>>> findCandidates(
+      Project project, VirtualFile[] roots, ProgressIndicator indicator) {
+    indicator.setIndeterminate(true);
+    List<VirtualFile> files =
+        ReadAction.nonBlocking(() -> collectJavaFiles(project, roots)).executeSynchronously();
+    indicator.setIndeterminate(false);
+
+    Map<VirtualFile, List<SmartPsiElementPointer<PsiClass>>> found = new ConcurrentHashMap<>();
+    AtomicInteger processed = new AtomicInteger();
+    JobLauncher.getInstance()
+        .invokeConcurrentlyUnderProgress(
+            files,
+            indicator,
+            file -> {
+              List<SmartPsiElementPointer<PsiClass>> classes =
+                  ReadAction.nonBlocking(() -> findCandidatesIn(project, file))
+                      .executeSynchronously();
+              if (!classes.isEmpty()) {
+                found.put(file, classes);
+              }
+              indicator.setFraction((double) processed.incrementAndGet() / files.size());
+              return true;
+            });
+
+    Map<VirtualFile, List<SmartPsiElementPointer<PsiClass>>> candidates = new LinkedHashMap<>();
+    for (VirtualFile file : files) {
+      if (found.containsKey(file)) {
+        candidates.put(file, found.get(file));
+      }
+    }
+    return candidates;
+  }
+
+  private static List<VirtualFile> collectJavaFiles(Project project, VirtualFile[] roots) {
+    ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+    FileTypeRegistry fileTypes = FileTypeRegistry.getInstance();
+    Set<VirtualFile> files = new LinkedHashSet<>();
+    for (VirtualFile root : roots) {
+      VfsUtilCore.iterateChildrenRecursively(
+          root,
+          fileIndex::isInContent,
+          file -> {
+            ProgressManager.checkCanceled();
+            if (!file.isDirectory()
+                && fileTypes.isFileOfType(file, JavaFileType.INSTANCE)
+                && fileIndex.isInSourceContent(file)) {
+              files.add(file);
+            }
+            return true;
+          });
+    }
+    return new ArrayList<>(files);
+  }
+
+  private static List<SmartPsiElementPointer<PsiClass>> findCandidatesIn(
+      Project project, VirtualFile file) {
+    // the index tells which files declare builders without parsing them
+    if (!file.isValid()
+        || !DumbService.isDumb(project) && !BuilderIndex.hasBuilders(project, file)
+        || !(PsiManager.getInstance(project).findFile(file) instanceof PsiJavaFile javaFile)) {
+      return List.of();
+    }
+    SmartPointerManager pointers = SmartPointerManager.getInstance(project);
+    List<SmartPsiElementPointer<PsiClass>> candidates = new ArrayList<>();
+    Deque<PsiClass> queue = new ArrayDeque<>(Arrays.asList(javaFile.getClasses()));
+    PsiClass psiClass;
+    while ((psiClass = queue.poll()) != null) {
+      ProgressManager.checkCanceled();
+      if (builderOf(psiClass) != null) {
+        candidates.add(pointers.createSmartPsiElementPointer(psiClass));
+      }
+      for (PsiClass innerClass : psiClass.getInnerClasses()) {
+        if (!BuilderClasses.isBuilder(innerClass)) {
+          queue.add(innerClass);
+        }
+      }
+    }
+    return candidates;
+  }
+
+  private static PsiClass builderOf(PsiClass psiClass) {
+    for (PsiClass innerClass : psiClass.getInnerClasses()) {
+      if (BuilderClasses.isBuilder(innerClass)) {
+        return innerClass;
+      }
+    }
+    return null;
+  }
+
+  private static void regenerate(
+      Project project, Map<VirtualFile, List<SmartPsiElementPointer<PsiClass>>> candidates) {
+    if (candidates.isEmpty()
+        || ReadonlyStatusHandler.getInstance(project)
+            .ensureFilesWritable(candidates.keySet())
+            .hasReadonlyFiles()) {
+      return;
+    }
+    BuilderSettings settings = BuilderSettings.of(project);
+    String groupId = TITLE + ":" + System.nanoTime();
+    candidates.forEach(
+        (file, classes) ->
+            ReadAction.nonBlocking(() -> plan(classes, settings))
+                .expireWhen(() -> project.isDisposed() || !file.isValid())
+                .finishOnUiThread(
+                    ModalityState.defaultModalityState(),
+                    plans ->
+                        WriteCommandAction.writeCommandAction(project)
+                            .withName(TITLE)
+                            .withGroupId(groupId)
+                            .withGlobalUndo()
+                            .run(() -> apply(project, file, plans, settings)))
+                .submit(AppExecutorUtil.getAppExecutorService()));
+  }
+
+  /** Plans the builders of the classes of one file. Runs in a background read action. */
+  private static Map<SmartPsiElementPointer<PsiClass>, GenerationPlan> plan(
+      List<SmartPsiElementPointer<PsiClass>> classes, BuilderSettings settings) {
+    Map<SmartPsiElementPointer<PsiClass>, GenerationPlan> plans = new LinkedHashMap<>();
+    for (SmartPsiElementPointer<PsiClass> pointer : classes) {
+      ProgressManager.checkCanceled();
+      PsiClass psiClass = pointer.getElement();
+      List<Field> fields = psiClass == null ? List.of() : fieldsOf(psiClass);
+      if (!fields.isEmpty()) {
+        plans.put(pointer, BuilderGenerator.plan(psiClass, fields, settings));
+      }
+    }
+    return plans;
+  }
+
+  /**
+   * Writes the plans of one file. A plan made stale by the one applied before it, for instance
+   * a record nested in another, is recomputed in place.
+   */
+  private static void apply(
+      Project project,
+      VirtualFile file,
+      Map<SmartPsiElementPointer<PsiClass>, GenerationPlan> plans,
+      BuilderSettings settings) {
+    plans.forEach(
+        (pointer, plan) -> {
+          PsiClass psiClass = pointer.getElement();
+          if (psiClass == null || !psiClass.isValid()) {
+            return;
+          }
+          if (psiClass == plan.recordClass()
+              && (plan.existingBuilder() == null || plan.existingBuilder().isValid())) {
+            BuilderGenerator.apply(plan);
+          } else {
+            regenerate(psiClass, settings);
+          }
+        });
+    Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    if (document != null) {
+      PsiDocumentManager.getInstance(project).doPostponedOperationsAndUnblockDocument(document);
+    }
+  }
+
+  /** Regenerates the builder of the class for the fields it currently holds. */
+  private static void regenerate(PsiClass psiClass, BuilderSettings settings) {
+    List<Field> fields = fieldsOf(psiClass);
+    if (!fields.isEmpty()) {
+      BuilderGenerator.generate(psiClass, fields, settings);
+    }
+  }
+
+  /** Returns the components of the class its builder currently holds. */
+  private static List<Field> fieldsOf(PsiClass psiClass) {
+    PsiClass builderClass = builderOf(psiClass);
+    if (builderClass == null) {
+      return List.of();
+    }
+    Set<String> names =
+        BuilderGenerator.getComponents(builderClass).stream()
+            .map(Field::name)
+            .collect(Collectors.toSet());
+    return BuilderGenerator.getComponents(psiClass).stream()
+        .filter(it -> names.isEmpty() || names.contains(it.name()))
+        .toList();
+  }
+}
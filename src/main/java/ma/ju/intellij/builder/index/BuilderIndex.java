@@ -0,0 +1,310 @@
+package ma.ju.intellij.builder.index;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAssignmentExpression;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiCodeBlock;
+import com.intellij.psi.PsiExpression;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiMethodCallExpression;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiReferenceExpression;
+import com.intellij.psi.PsiThisExpression;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Maps the qualified name of every class declaring an inner {@code Builder} to a summary of that
+ * builder: its qualified name, and the fields each of its methods assigns and the builder methods
+ * it calls.
+ * The summary is read from the syntax of the file only, nothing is resolved while indexing.
+ */
+public class BuilderIndex extends FileBasedIndexExtension<String, BuilderIndex.Entry> {
+  public static final ID<String, Entry> NAME = ID.create("ma.ju.intellij.builder.index");
+
+  /** A call of a method of the builder itself, unqualified or qualified with {@code this}. */
+  public record Call(String name, int argumentCount) {}
+
+  /** A method of the builder with the fields it assigns and the builder methods it calls. */
+  public record SetterEntry(
+      String name, int parameterCount, List<Call> calls, List<String> fields) {
+    /** Returns {@code true} if the method may assign more fields than those listed. */
+    public boolean delegates() {
+      return !calls.isEmpty();
+    }
+  }
+
+  public record Entry(String builderName, List<SetterEntry> setters) {
+    /** Returns the only method with the given name and parameter count, if there is one. */
+    public @Nullable SetterEntry setter(String name, int parameterCount) {
+      SetterEntry found = null;
+      for (SetterEntry setter : setters) {
+        if (setter.name().equals(name) && setter.parameterCount() == parameterCount) {
+          if (found != null) {
+            return null;
+          }
+          found = setter;
+        }
+      }
+      return found;
+    }
+
+    /**
+     * Returns the fields assigned by the given method and by the builder methods it calls, or
+     * {@code null} if one of these methods isn't listed or is overloaded with the same arity.
+     */
+    public @Nullable List<String> assignedFields(String name, int parameterCount) {
+      SetterEntry setter = setter(name, parameterCount);
+      if (setter == null) {
+        return null;
+      }
+      Set<String> fields = new LinkedHashSet<>();
+      Set<SetterEntry> seen = new HashSet<>();
+      Deque<SetterEntry> queue = new ArrayDeque<>();
+      seen.add(setter);
+      queue.add(setter);
+      while ((setter = queue.poll()) != null) {
+        fields.addAll(setter.fields());
+        for (Call call : setter.calls()) {
+          SetterEntry callee = setter(call.name(), call.argumentCount());
+          if (callee == null) {
+            return null;
+          }
+          if (seen.add(callee)) {
+            queue.add(callee);
+          }
+        }
+      }
+      return List.copyOf(fields);
+    }
+  }
+
+  @Override
+  public @NotNull ID<String, Entry> getName() {
+    return NAME;
+  }
+
+  @Override
+  public @NotNull DataIndexer<String, Entry, FileContent> getIndexer() {
+    return BuilderIndex::index;
+  }
+
+  @Override
+  public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public @NotNull DataExternalizer<Entry> getValueExternalizer() {
+    return EntryExternalizer.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return 5;
+  }
+
+  @Override
+  public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /**
+   * Returns the builder of the class with the given qualified name, or {@code null} if it has none
+   * or more than one file of the scope declares a class with that name.
+   */
+  public static @Nullable Entry find(String qualifiedName, GlobalSearchScope scope) {
+    List<Entry> values = FileBasedIndex.getInstance().getValues(NAME, qualifiedName, scope);
+    return values.size() == 1 ? values.get(0) : null;
+  }
+
+  /**
+   * Returns the entry of the given builder class, read from the index of its own file so that its
+   * AST doesn't need to be loaded, or {@code null} if the builder isn't indexed or the index isn't
+   * ready.
+   */
+  public static @Nullable Entry of(PsiClass builderClass) {
+    PsiClass containingClass = builderClass.getContainingClass();
+    PsiFile file = builderClass.getContainingFile();
+    VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+    if (containingClass == null
+        || virtualFile == null
+        || DumbService.isDumb(builderClass.getProject())) {
+      return null;
+    }
+    String qualifiedName = containingClass.getQualifiedName();
+    GlobalSearchScope scope = GlobalSearchScope.fileScope(builderClass.getProject(), virtualFile);
+    Entry entry = qualifiedName == null ? null : find(qualifiedName, scope);
+    return entry != null && entry.builderName().equals(builderClass.getQualifiedName())
+        ? entry
+        : null;
+  }
+
+  /** Returns the builders declared in the file, keyed by the qualified name of their class. */
+  public static Map<String, Entry> buildersIn(Project project, VirtualFile file) {
+    return FileBasedIndex.getInstance().getFileData(NAME, file, project);
+  }
+
+  /** Returns {@code true} if the file declares a class with an inner builder. */
+  public static boolean hasBuilders(Project project, VirtualFile file) {
+    return !buildersIn(project, file).isEmpty();
+  }
+
+  private static Map<String, Entry> index(FileContent content) {
+    if (!(content.getPsiFile() instanceof PsiJavaFile javaFile)) {
+      return Map.of();
+    }
+    Map<String, Entry> entries = new HashMap<>();
+    Deque<PsiClass> queue = new ArrayDeque<>(Arrays.asList(javaFile.getClasses()));
+    PsiClass psiClass;
+    while ((psiClass = queue.poll()) != null) {
+      for (PsiClass innerClass : psiClass.getInnerClasses()) {
+        if (!"Builder".equals(innerClass.getName())) {
+          queue.add(innerClass);
+        } else if (psiClass.getQualifiedName() != null && innerClass.getQualifiedName() != null) {
+          entries.put(psiClass.getQualifiedName(), entryOf(innerClass));
+        }
+      }
+    }
+    return entries;
+  }
+
+  private static Entry entryOf(PsiClass builderClass) {
+    Set<String> fieldNames = new HashSet<>();
+    for (PsiField field : builderClass.getFields()) {
+      if (!field.hasModifierProperty(PsiModifier.STATIC)) {
+        fieldNames.add(field.getName());
+      }
+    }
+
+    List<SetterEntry> setters = new ArrayList<>();
+    for (PsiMethod method : builderClass.getMethods()) {
+      if (method.isConstructor()) {
+        continue;
+      }
+      // methods without a body are listed too, assigning nothing
+      PsiCodeBlock body = method.getBody();
+      Set<String> assigned = new LinkedHashSet<>();
+      for (PsiAssignmentExpression assignment :
+          PsiTreeUtil.findChildrenOfType(body, PsiAssignmentExpression.class)) {
+        if (assignment.getLExpression() instanceof PsiReferenceExpression reference
+            && (reference.getQualifierExpression() == null
+                || reference.getQualifierExpression() instanceof PsiThisExpression)
+            && fieldNames.contains(reference.getReferenceName())) {
+          assigned.add(reference.getReferenceName());
+        }
+      }
+      Set<Call> calls = new LinkedHashSet<>();
+      for (PsiMethodCallExpression call :
+          PsiTreeUtil.findChildrenOfType(body, PsiMethodCallExpression.class)) {
+        PsiExpression qualifier = call.getMethodExpression().getQualifierExpression();
+        String callee = call.getMethodExpression().getReferenceName();
+        if (callee != null && (qualifier == null || qualifier instanceof PsiThisExpression)) {
+          calls.add(new Call(callee, call.getArgumentList().getExpressionCount()));
+        }
+      }
+      setters.add(
+          new SetterEntry(
+              method.getName(),
+              method.getParameterList().getParametersCount(),
+              List.copyOf(calls),
+              List.copyOf(assigned)));
+    }
+    return new Entry(builderClass.getQualifiedName(), setters);
+  }
+
+  private static final class EntryExternalizer implements DataExternalizer<Entry> {
+    private static final EntryExternalizer INSTANCE = new EntryExternalizer();
+
+    @Override
+    public void save(@NotNull DataOutput out, Entry value) throws IOException {
+      IOUtil.writeUTF(out, value.builderName());
+      DataInputOutputUtil.writeINT(out, value.setters().size());
+      for (SetterEntry setter : value.setters()) {
+        IOUtil.writeUTF(out, setter.name());
+        DataInputOutputUtil.writeINT(out, setter.parameterCount());
+        DataInputOutputUtil.writeINT(out, setter.calls().size());
+        for (Call call : setter.calls()) {
+          IOUtil.writeUTF(out, call.name());
+          DataInputOutputUtil.writeINT(out, call.argumentCount());
+        }
+        writeNames(out, setter.fields());
+      }
+    }
+
+    @Override
+    public Entry read(@NotNull DataInput in) throws IOException {
+      String builderName = IOUtil.readUTF(in);
+      int setterCount = DataInputOutputUtil.readINT(in);
+      List<SetterEntry> setters = new ArrayList<>(setterCount);
+      for (int i = 0; i < setterCount; i++) {
+        setters.add(
+            new SetterEntry(
+                IOUtil.readUTF(in), DataInputOutputUtil.readINT(in), readCalls(in), readNames(in)));
+      }
+      return new Entry(builderName, setters);
+    }
+
+    private static List<Call> readCalls(DataInput in) throws IOException {
+      int count = DataInputOutputUtil.readINT(in);
+      List<Call> calls = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        calls.add(new Call(IOUtil.readUTF(in), DataInputOutputUtil.readINT(in)));
+      }
+      return calls;
+    }
+
+    private static void writeNames(DataOutput out, List<String> names) throws IOException {
+      DataInputOutputUtil.writeINT(out, names.size());
+      for (String name : names) {
+        IOUtil.writeUTF(out, name);
+      }
+    }
+
+    private static List<String> readNames(DataInput in) throws IOException {
+      int count = DataInputOutputUtil.readINT(in);
+      List<String> names = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        names.add(IOUtil.readUTF(in));
+      }
+      return names;
+    }
+  }
+}
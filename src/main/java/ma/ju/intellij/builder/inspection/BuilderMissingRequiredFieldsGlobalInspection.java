@@ -0,0 +1,168 @@
+package ma.ju.intellij.builder.inspection;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.codeInspection.GlobalInspectionContext;
+import com.intellij.codeInspection.GlobalInspectionTool;
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.ProblemDescriptionsProcessor;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.codeInspection.options.OptPane;
+import com.intellij.codeInspection.options.OptionController;
+import com.intellij.codeInspection.reference.RefEntity;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiMethodCallExpression;
+import com.intellij.psi.PsiReferenceExpression;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiShortNamesCache;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import ma.ju.intellij.builder.psi.BuilderClasses;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Batch version of {@link BuilderMissingRequiredFieldsInspection}. Instead of visiting every file
+ * of the scope, it locates the {@code build()} calls of the project's builders through {@link
+ * ReferencesSearch} and analyses the files containing them in parallel read actions.
+ */
+public class BuilderMissingRequiredFieldsGlobalInspection extends GlobalInspectionTool {
+  /** Holds the options, shared with the local inspection, and analyses the calls. */
+  private final BuilderMissingRequiredFieldsInspection inspection =
+      new BuilderMissingRequiredFieldsInspection();
+
+  @Override
+  public boolean isReadActionNeeded() {
+    return false;
+  }
+
+  @Override
+  public @NotNull OptPane getOptionsPane() {
+    return inspection.getOptionsPane();
+  }
+
+  @Override
+  public @NotNull OptionController getOptionController() {
+    return inspection.getOptionController();
+  }
+
+  @Override
+  public void readSettings(@NotNull Element node) {
+    inspection.readSettings(node);
+  }
+
+  @Override
+  public void writeSettings(@NotNull Element node) {
+    inspection.writeSettings(node);
+  }
+
+  @Override
+  public void runInspection(
+      @NotNull AnalysisScope scope,
+      @NotNull InspectionManager manager,
+      @NotNull GlobalInspectionContext globalContext,
+      @NotNull ProblemDescriptionsProcessor problemDescriptionsProcessor) {
+    ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    Map<PsiFile, List<PsiMethodCallExpression>> calls =
+        ReadAction.nonBlocking(() -> findBuildCalls(manager.getProject(), scope.toSearchScope()))
+            .executeSynchronously();
+    if (calls.isEmpty()) {
+      return;
+    }
+
+    List<PsiFile> files = new ArrayList<>(calls.keySet());
+    Map<PsiFile, List<ProblemDescriptor>> problems = new ConcurrentHashMap<>();
+    AtomicInteger processed = new AtomicInteger();
+    JobLauncher.getInstance()
+        .invokeConcurrentlyUnderProgress(
+            files,
+            indicator,
+            file -> {
+              List<ProblemDescriptor> results =
+                  ReadAction.nonBlocking(
+                          () -> analyse(inspection, manager, file, calls.get(file)))
+                      .executeSynchronously();
+              if (!results.isEmpty()) {
+                problems.put(file, results);
+              }
+              if (indicator != null) {
+                indicator.setFraction((double) processed.incrementAndGet() / files.size());
+              }
+              return true;
+            });
+
+    ReadAction.run(
+        () ->
+            problems.forEach(
+                (file, descriptors) -> {
+                  RefEntity reference = globalContext.getRefManager().getReference(file);
+                  if (reference != null) {
+                    problemDescriptionsProcessor.addProblemElement(
+                        reference, descriptors.toArray(ProblemDescriptor[]::new));
+                  }
+                }));
+  }
+
+  /** Groups the {@code build()} calls of every builder in the project by containing file. */
+  private static Map<PsiFile, List<PsiMethodCallExpression>> findBuildCalls(
+      Project project, SearchScope scope) {
+    Map<PsiFile, List<PsiMethodCallExpression>> calls = new LinkedHashMap<>();
+    PsiClass[] candidates =
+        PsiShortNamesCache.getInstance(project)
+            .getClassesByName("Builder", GlobalSearchScope.allScope(project));
+    for (PsiClass candidate : candidates) {
+      ProgressManager.checkCanceled();
+      if (!BuilderClasses.isBuilder(candidate)) {
+        continue;
+      }
+      for (PsiMethod method : candidate.findMethodsByName("build", false)) {
+        ReferencesSearch.search(method, scope)
+            .forEach(
+                reference -> {
+                  PsiElement element = reference.getElement();
+                  if (element instanceof PsiReferenceExpression
+                      && element.getParent() instanceof PsiMethodCallExpression call) {
+                    calls
+                        .computeIfAbsent(call.getContainingFile(), k -> new ArrayList<>())
+                        .add(call);
+                  }
+                });
+      }
+    }
+    return calls;
+  }
+
+  private static List<ProblemDescriptor> analyse(
+      BuilderMissingRequiredFieldsInspection inspection,
+      InspectionManager manager,
+      PsiFile file,
+      List<PsiMethodCallExpression> calls) {
+    if (!file.isValid()) {
+      return List.of();
+    }
+    ProblemsHolder holder = new ProblemsHolder(manager, file, false);
+    PsiElementVisitor visitor = inspection.buildVisitor(holder, false);
+    for (PsiMethodCallExpression call : calls) {
+      ProgressManager.checkCanceled();
+      if (call.isValid()) {
+        call.accept(visitor);
+      }
+    }
+    return holder.getResults();
+  }
+}
@@ -1,6 +1,7 @@
 package ma.ju.intellij.builder.inspection;
 
 import static com.intellij.codeInspection.options.OptPane.checkbox;
+import static com.intellij.codeInspection.options.OptPane.number;
 
 import com.intellij.codeInsight.NullableNotNullManager;
 import com.intellij.codeInsight.options.JavaInspectionButtons;
@@ -10,12 +11,21 @@ import com.intellij.codeInspection.LocalQuickFix;
 import com.intellij.codeInspection.ProblemDescriptor;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.codeInspection.options.OptPane;
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.JavaTokenType;
 import com.intellij.psi.JavaPsiFacade;
 import com.intellij.psi.PsiAnnotation;
 import com.intellij.psi.PsiAssignmentExpression;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiCodeBlock;
+import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementFactory;
 import com.intellij.psi.PsiElementVisitor;
@@ -24,96 +34,89 @@ import com.intellij.psi.PsiExpressionList;
 import com.intellij.psi.PsiExpressionStatement;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaToken;
+import com.intellij.psi.PsiLiteralExpression;
 import com.intellij.psi.PsiLocalVariable;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiMethodCallExpression;
 import com.intellij.psi.PsiModifier;
 import com.intellij.psi.PsiNewExpression;
 import com.intellij.psi.PsiParameter;
-import com.intellij.psi.PsiReference;
+import com.intellij.psi.PsiPrimitiveType;
+import com.intellij.psi.PsiReferenceExpression;
 import com.intellij.psi.PsiReturnStatement;
 import com.intellij.psi.PsiStatement;
-import com.intellij.psi.PsiVariable;
+import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.impl.source.PsiMethodImpl;
 import com.intellij.psi.impl.source.tree.java.PsiReferenceExpressionImpl;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiUtil;
-import com.intellij.util.Query;
+import com.intellij.util.containers.ConcurrentFactoryMap;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.TypeName;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.Predicate;
+import ma.ju.intellij.builder.diagnostics.BuilderDiagnostics;
+import ma.ju.intellij.builder.index.BuilderIndex;
+import ma.ju.intellij.builder.psi.BuilderClasses;
 import ma.ju.intellij.builder.psi.BuilderDescriptor;
-import ma.ju.intellij.builder.psi.BuilderGenerator;
 import ma.ju.intellij.builder.psi.Field;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLocalInspectionTool {
+  private static final Key<CachedValue<BuilderDescriptor>> DESCRIPTOR_KEY =
+      Key.create("ma.ju.intellij.builder.inspection.descriptor");
+  private static final Key<CachedValue<Boolean>> EXTERNAL_BUILDER_KEY =
+      Key.create("ma.ju.intellij.builder.inspection.externalBuilder");
+  private static final Key<CachedValue<Map<MandatoryFieldsKey, RequiredFieldSet>>>
+      MANDATORY_FIELDS_KEY = Key.create("ma.ju.intellij.builder.inspection.mandatoryFields");
+  private static final Key<CachedValue<List<PsiField>>> SUMMARY_KEY =
+      Key.create("ma.ju.intellij.builder.inspection.summary");
+  private static final Key<CachedValue<List<PsiField>>> CONTROL_FLOW_SUMMARY_KEY =
+      Key.create("ma.ju.intellij.builder.inspection.controlFlowSummary");
+
+  private static final int DEFAULT_MAX_VISITED_NODES = 100_000;
+  // fixed rather than taken from the options, since summaries are shared by every inspection
+  // profile and call site
+  static final int SUMMARY_MAX_VISITED_NODES = DEFAULT_MAX_VISITED_NODES;
+
   @SuppressWarnings("PublicField")
   public boolean requireNotNullAnnotation = false;
 
   public boolean ignoreExternalBuilders = true;
 
-  private final ReplaceWithRequired myQuickFix = new ReplaceWithRequired();
-
-  private PsiClass getContainingBuilderClass(PsiMethod element) {
-    PsiClass aClass = element.getContainingClass();
-    while (aClass != null && !isBuilder(aClass)) {
-      aClass = aClass.getContainingClass();
-    }
-
-    return aClass;
-  }
-
-  private ClassName resolveType(PsiClass psiClass) {
-    try {
-      if (psiClass.getQualifiedName() != null) {
-        return ClassName.bestGuess(psiClass.getQualifiedName());
-      } else if (psiClass.getName() != null) {
-        return ClassName.bestGuess(psiClass.getName());
-      }
-      return ClassName.get(Object.class);
-    } catch (Exception e) {
-      return ClassName.get(Object.class);
-    }
-  }
+  public boolean useControlFlowAnalysis = false;
 
-  private Boolean isBuilder(PsiClass psiClass) {
-    if (psiClass == null
-        || !Objects.equals(psiClass.getName(), "Builder")
-        || psiClass.getContainingClass() == null) {
-      return false;
-    }
+  public int maxVisitedNodes = DEFAULT_MAX_VISITED_NODES;
 
-    ClassName type = resolveType(psiClass.getContainingClass());
-    for (PsiMethod method : psiClass.getMethods()) {
-      if (method.getName().equals("build")
-          && !method.hasParameters()
-          && method.getReturnType() != null) {
-        if (Field.resolveType(method.getReturnType()).equals(type)) {
-          return true;
-        }
-      }
-    }
-    return false;
-  }
+  private final ReplaceWithRequired myQuickFix = new ReplaceWithRequired();
 
-  private List<Field> setterFieldsFor(PsiMethod method) {
+  private static List<Field> setterFieldsFor(PsiMethod method) {
     Queue<PsiElement> queue = new LinkedList<>();
     Set<PsiElement> seenElements = new HashSet<>();
     Set<Field> fields = new LinkedHashSet<>();
 
     queue.offer(method);
     while (!queue.isEmpty()) {
+      ProgressManager.checkCanceled();
       PsiElement cur = queue.poll();
       if (cur == null) {
         continue;
@@ -155,21 +158,71 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
     return new ArrayList<>(fields);
   }
 
-  private BuilderDescriptor descriptorFor(PsiClass recordClass) {
+  /**
+   * Returns {@code true} if the builder comes from a library or from a jar outside the project
+   * content. The classification is cached per builder class until the project roots change.
+   */
+  private static boolean isExternalBuilder(PsiClass builderClass) {
+    return CachedValuesManager.getCachedValue(
+        builderClass,
+        EXTERNAL_BUILDER_KEY,
+        () -> {
+          Project project = builderClass.getProject();
+          PsiFile file = builderClass.getContainingFile();
+          VirtualFile virtualFile = file == null ? null : file.getOriginalFile().getVirtualFile();
+          boolean external =
+              virtualFile != null
+                  && (ProjectFileIndex.getInstance(project).isInLibrary(virtualFile)
+                      || virtualFile.getPath().contains(".jar!/"));
+          return CachedValueProvider.Result.create(
+              external, ProjectRootModificationTracker.getInstance(project));
+        });
+  }
+
+  /**
+   * Returns the descriptor of the given builder class. The descriptor is shared by every call site
+   * of the builder and is recomputed only when the builder's file or the java structure changes.
+   */
+  static BuilderDescriptor descriptorFor(PsiClass builderClass) {
+    BuilderDiagnostics diagnostics = BuilderDiagnostics.getInstance();
+    long start = diagnostics.start();
+    diagnostics.cacheAccess(BuilderDiagnostics.DESCRIPTOR);
+    try {
+      return CachedValuesManager.getCachedValue(
+          builderClass,
+          DESCRIPTOR_KEY,
+          () -> {
+            BuilderDiagnostics.getInstance().cacheMiss(BuilderDiagnostics.DESCRIPTOR);
+            return CachedValueProvider.Result.create(
+                computeDescriptor(builderClass),
+                builderClass,
+                PsiModificationTracker.getInstance(builderClass.getProject())
+                    .forLanguage(JavaLanguage.INSTANCE));
+          });
+    } finally {
+      diagnostics.record(BuilderDiagnostics.DESCRIPTOR, start);
+    }
+  }
+
+  /**
+   * Computes the descriptor of the builder class from its stubs and its {@link BuilderIndex}
+   * entry, so that describing a builder declared in another file doesn't load that file's AST.
+   * Only setters missing from the index are walked.
+   */
+  private static BuilderDescriptor computeDescriptor(PsiClass builderClass) {
     BuilderDescriptor descriptor = new BuilderDescriptor();
-    ClassName className = resolveType(recordClass);
-    BuilderGenerator.getComponents(recordClass)
-        .forEach(
-            f -> {
-              if (!f.typeName().isPrimitive()
-                  && !f.source().hasModifierProperty(PsiModifier.FINAL)
-                  && f.source() instanceof PsiVariable variable
-                  && !variable.hasInitializer()) {
-                descriptor.fields().put(f.name(), f);
-              }
-            });
+    BuilderIndex.Entry entry = BuilderIndex.of(builderClass);
+    ClassName className = BuilderClasses.typeOf(builderClass);
+    for (PsiField field : builderClass.getFields()) {
+      if (!field.hasModifierProperty(PsiModifier.STATIC)
+          && !field.hasModifierProperty(PsiModifier.FINAL)
+          && !field.hasInitializer()
+          && !(field.getType() instanceof PsiPrimitiveType)) {
+        descriptor.fields().put(field.getName(), Field.of(field));
+      }
+    }
 
-    for (PsiMethod method : recordClass.getAllMethods()) {
+    for (PsiMethod method : builderClass.getAllMethods()) {
       if (method.hasModifierProperty(PsiModifier.PRIVATE)
           || method.hasModifierProperty(PsiModifier.STATIC)
           || method.getReturnType() == null) {
@@ -181,12 +234,17 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
         continue;
       }
 
-      List<Field> fields = setterFieldsFor(method);
+      List<String> indexed =
+          entry == null || method.getContainingClass() != builderClass
+              ? null
+              : entry.assignedFields(
+                  method.getName(), method.getParameterList().getParametersCount());
+      List<String> fields =
+          indexed != null ? indexed : setterFieldsFor(method).stream().map(Field::name).toList();
       fields.forEach(
           it -> {
-            if (descriptor.fields().containsKey(it.name())
-                && !descriptor.methods().containsKey(it.name())) {
-              descriptor.methods().put(it.name(), method);
+            if (descriptor.fields().containsKey(it) && !descriptor.methods().containsKey(it)) {
+              descriptor.methods().put(it, method);
             }
           });
 
@@ -197,102 +255,301 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
       }
       descriptor.methods().put(field, method);
     }
-    return descriptor;
+    return new BuilderDescriptor(
+        Collections.unmodifiableMap(descriptor.methods()),
+        Collections.unmodifiableMap(descriptor.fields()));
   }
 
-  private List<String> processMissingFields(PsiElement expression, PsiClass builderClass) {
-    ClassName builderType = resolveType(builderClass);
-    List<String> mandatoryFields = new ArrayList<>(getMandatoryFields(builderClass));
-    Queue<PsiElement> queue = new LinkedList<>();
-    Set<PsiElement> seenElements = new HashSet<>();
+  /**
+   * Returns the required fields that are not set prior to the given {@code build()} call, or an
+   * empty list if the call does not target a builder.
+   */
+  List<String> findMissingFields(PsiMethodCallExpression expression) {
+    PsiMethod resolvedMethod = expression.resolveMethod();
+    if (resolvedMethod == null) {
+      return List.of();
+    }
+    PsiClass builderClass = BuilderClasses.getContainingBuilderClass(resolvedMethod);
+    if (builderClass == null) {
+      return List.of();
+    }
+    return processMissingFields(expression, builderClass, new LocalVariableReferences());
+  }
+
+  /**
+   * Returns the required fields of the builder that are not assigned by the PSI reachable from the
+   * given expression. With {@link #useControlFlowAnalysis} a use of a local builder variable only
+   * counts for the fields it assigns on every control flow path to the current element, rather
+   * than merely preceding it textually. Once the walk visits more than {@link #maxVisitedNodes}
+   * nodes nothing is reported, since the fields assigned by the rest of the PSI are unknown. Called
+   * methods are looked up through their cached summaries, whose nodes don't count towards the
+   * limit; a summary has its own fixed limit and nothing is reported either when it exceeds it.
+   */
+  private List<String> processMissingFields(
+      PsiElement expression, PsiClass builderClass, LocalVariableReferences localReferences) {
+    BuilderDiagnostics diagnostics = BuilderDiagnostics.getInstance();
+    long start = diagnostics.start();
+    try {
+      RequiredFieldSet.Tracker tracker = getMandatoryFields(builderClass).newTracker();
+      if (tracker.isComplete()) {
+        return List.of();
+      }
+      Walker walker =
+          new Walker(
+              builderClass::isEquivalentTo,
+              useControlFlowAnalysis,
+              localReferences,
+              null,
+              maxVisitedNodes);
+      walker.walk(
+          expression,
+          field -> {
+            if (builderClass.isEquivalentTo(field.getContainingClass())) {
+              tracker.assign(field.getName());
+            }
+            return !tracker.isComplete();
+          });
+      diagnostics.visited(BuilderDiagnostics.PROCESS_MISSING_FIELDS, walker.visited());
+      return walker.isOverBudget() ? List.of() : tracker.missing();
+    } finally {
+      diagnostics.record(BuilderDiagnostics.PROCESS_MISSING_FIELDS, start);
+    }
+  }
 
-    queue.offer(expression);
+  /**
+   * Returns the builder fields assigned by the method or by anything it calls, or {@code null} if
+   * the walk visited more than {@link #SUMMARY_MAX_VISITED_NODES} nodes. The summary is computed
+   * once per method and reused at every call site until one of the files the walk went through
+   * changes: the method's own, those of the methods it calls and those of the builders it creates
+   * or assigns.
+   */
+  private static @Nullable List<PsiField> summaryOf(
+      PsiMethod method, boolean useControlFlowAnalysis) {
+    BuilderDiagnostics diagnostics = BuilderDiagnostics.getInstance();
+    long start = diagnostics.start();
+    diagnostics.cacheAccess(BuilderDiagnostics.SUMMARY);
+    try {
+      return CachedValuesManager.getCachedValue(
+          method,
+          useControlFlowAnalysis ? CONTROL_FLOW_SUMMARY_KEY : SUMMARY_KEY,
+          () -> {
+            BuilderDiagnostics.getInstance().cacheMiss(BuilderDiagnostics.SUMMARY);
+            return computeSummary(method, useControlFlowAnalysis);
+          });
+    } finally {
+      diagnostics.record(BuilderDiagnostics.SUMMARY, start);
+    }
+  }
 
-    while (!queue.isEmpty()) {
-      PsiElement cur = queue.poll();
-      if (mandatoryFields.isEmpty()) {
-        break;
+  private static CachedValueProvider.Result<List<PsiField>> computeSummary(
+      PsiMethod method, boolean useControlFlowAnalysis) {
+    Set<PsiFile> files = new HashSet<>();
+    Set<PsiField> fields = new LinkedHashSet<>();
+    Walker walker =
+        new Walker(
+            BuilderClasses::isBuilder,
+            useControlFlowAnalysis,
+            new LocalVariableReferences(),
+            files,
+            SUMMARY_MAX_VISITED_NODES);
+    walker.walk(
+        method,
+        field -> {
+          fields.add(field);
+          return true;
+        });
+    BuilderDiagnostics.getInstance().visited(BuilderDiagnostics.SUMMARY, walker.visited());
+    files.remove(null);
+    List<Object> dependencies = new ArrayList<>(files);
+    dependencies.add(method);
+    return CachedValueProvider.Result.create(
+        walker.isOverBudget() ? null : List.copyOf(fields), dependencies);
+  }
+
+  /**
+   * Returns the fields assigned by the given builder method, and the builder methods it calls, as
+   * recorded in the {@link BuilderIndex}, or {@code null} if one of them isn't indexed. Looking the
+   * fields up this way avoids loading the AST of the builder's file.
+   */
+  private static @Nullable List<PsiField> indexedFieldsOf(PsiMethod method) {
+    PsiClass builderClass = method.getContainingClass();
+    BuilderIndex.Entry entry = builderClass == null ? null : BuilderIndex.of(builderClass);
+    List<String> names =
+        entry == null
+            ? null
+            : entry.assignedFields(
+                method.getName(), method.getParameterList().getParametersCount());
+    if (names == null) {
+      return null;
+    }
+    List<PsiField> fields = new ArrayList<>(names.size());
+    for (String name : names) {
+      PsiField field = builderClass.findFieldByName(name, false);
+      if (field != null) {
+        fields.add(field);
       }
+    }
+    return fields;
+  }
 
-      if (cur != null) {
-        seenElements.add(cur);
+  /**
+   * Returns the element using the given reference to a local variable: the call when the
+   * reference qualifies a method call, e.g. {@code builder.setName(name)}, otherwise its parent.
+   */
+  private static PsiElement usageOf(PsiElement reference) {
+    PsiElement parent = reference.getParent();
+    if (parent instanceof PsiReferenceExpression
+        && parent.getParent() instanceof PsiMethodCallExpression call) {
+      return call;
+    }
+    return parent;
+  }
 
-        if (cur.getText().contains("this.defaultValue")) {
-          int i = 0;
+  /**
+   * Walks the PSI reachable from an element looking for assignments to the fields of builder
+   * classes, and passes them to a sink until it returns {@code false} or more than {@code budget}
+   * nodes have been visited. The walk checks for cancellation at every node so that typing can
+   * interrupt highlighting. The walk only inspects the structure of the visited elements and never
+   * materialises their text, so its cost stays linear in the number of visited nodes.
+   *
+   * <p>Without {@code visitedFiles} called methods and builder constructors are looked up through
+   * their {@link #summaryOf summaries}. Otherwise their bodies are walked inline, recording the
+   * files they belong to. Either way, the setters of builders are looked up in the index first.
+   */
+  private static final class Walker {
+    private final Predicate<PsiClass> isBuilder;
+    private final boolean useControlFlowAnalysis;
+    private final LocalVariableReferences localReferences;
+    private final @Nullable Set<PsiFile> visitedFiles;
+    private final int budget;
+    private int visited;
+    private boolean summaryOverBudget;
+
+    Walker(
+        Predicate<PsiClass> isBuilder,
+        boolean useControlFlowAnalysis,
+        LocalVariableReferences localReferences,
+        @Nullable Set<PsiFile> visitedFiles,
+        int budget) {
+      this.isBuilder = isBuilder;
+      this.useControlFlowAnalysis = useControlFlowAnalysis;
+      this.localReferences = localReferences;
+      this.visitedFiles = visitedFiles;
+      this.budget = budget;
+    }
+
+    /** Returns the number of nodes visited so far. */
+    int visited() {
+      return visited;
+    }
+
+    /** Returns whether the walk, or the summary of a method it called, exceeded its budget. */
+    boolean isOverBudget() {
+      return visited > budget || summaryOverBudget;
+    }
+
+    /**
+     * Walks the PSI reachable from the given element, returning {@code false} if the sink stopped
+     * the walk or the budget was exceeded.
+     */
+    boolean walk(PsiElement start, Predicate<PsiField> sink) {
+      return walk(start, Collections.newSetFromMap(new IdentityHashMap<>()), sink);
+    }
+
+    /**
+     * Passes the fields of the method's summary to the sink, returning {@code false} if the sink
+     * stopped the walk or the summary exceeded its budget.
+     */
+    private boolean passSummary(PsiMethod method, Predicate<PsiField> sink) {
+      List<PsiField> summary = summaryOf(method, useControlFlowAnalysis);
+      if (summary == null) {
+        summaryOverBudget = true;
+        return false;
+      }
+      for (PsiField field : summary) {
+        if (!sink.test(field)) {
+          return false;
         }
+      }
+      return true;
+    }
+
+    private boolean walk(PsiElement start, Set<PsiElement> seenElements, Predicate<PsiField> sink) {
+      Deque<PsiElement> queue = new ArrayDeque<>();
+      enqueue(queue, seenElements, start);
 
+      PsiElement cur;
+      while ((cur = queue.poll()) != null) {
+        ProgressManager.checkCanceled();
+        if (++visited > budget) {
+          return false;
+        }
         if (cur instanceof PsiReturnStatement statement) {
-          if (!seenElements.contains(statement.getReturnValue())) {
-            queue.offer(statement.getReturnValue());
-          }
+          enqueue(queue, seenElements, statement.getReturnValue());
         }
 
         if (cur instanceof PsiExpressionStatement statement) {
-          if (!seenElements.contains(statement.getExpression())) {
-            queue.offer(statement.getExpression());
-          }
+          enqueue(queue, seenElements, statement.getExpression());
         }
 
         if (cur instanceof PsiAssignmentExpression assignmentExpression) {
-          if (!seenElements.contains(assignmentExpression.getLExpression())) {
-            queue.offer(assignmentExpression.getLExpression());
-          }
+          enqueue(queue, seenElements, assignmentExpression.getLExpression());
         }
 
-        if (cur instanceof PsiNewExpression newExpression) {
-          if (Field.resolveType(newExpression.getType()).equals(builderType)) {
-            PsiMethod method = newExpression.resolveMethod();
-            if (method != null && !seenElements.contains(method)) {
-              queue.offer(method);
+        if (cur instanceof PsiNewExpression newExpression
+            && PsiUtil.resolveClassInType(newExpression.getType()) instanceof PsiClass builtClass
+            && isBuilder.test(builtClass)) {
+          PsiMethod constructor = newExpression.resolveMethod();
+          if (constructor != null && visitedFiles == null) {
+            if (!passSummary(constructor, sink)) {
+              return false;
             }
+          } else {
+            if (visitedFiles != null) {
+              visitedFiles.add(builtClass.getContainingFile());
+            }
+            enqueue(queue, seenElements, constructor);
           }
         }
 
         if (cur instanceof PsiExpressionList expressionList) {
-          if (expressionList.getParent() != null) {
-            if (!seenElements.contains(expressionList.getParent())) {
-              queue.offer(expressionList.getParent());
-            }
-          }
+          enqueue(queue, seenElements, expressionList.getParent());
         }
 
         if (cur instanceof PsiMethodCallExpression methodCallExpression
-            && !"(null)".equals(methodCallExpression.getArgumentList().getText())) {
+            && !isNullArgument(methodCallExpression.getArgumentList())) {
           for (PsiExpression psiExpression :
               methodCallExpression.getArgumentList().getExpressions()) {
-            if (!seenElements.contains(psiExpression)) {
-              queue.offer(psiExpression);
-            }
+            enqueue(queue, seenElements, psiExpression);
           }
 
           PsiMethod resolvedMethod = methodCallExpression.resolveMethod();
-          if (resolvedMethod != null) {
-            if (resolvedMethod.getBody() != null) {
-              for (PsiStatement statement : resolvedMethod.getBody().getStatements()) {
-                if (!seenElements.contains(statement)) {
-                  queue.offer(statement);
-                }
+          List<PsiField> indexedFields =
+              resolvedMethod != null && isBuilder.test(resolvedMethod.getContainingClass())
+                  ? indexedFieldsOf(resolvedMethod)
+                  : null;
+          if (indexedFields != null) {
+            if (visitedFiles != null) {
+              visitedFiles.add(resolvedMethod.getContainingFile());
+            }
+            for (PsiField field : indexedFields) {
+              if (!sink.test(field)) {
+                return false;
               }
             }
-
+          } else if (resolvedMethod != null && visitedFiles == null) {
+            if (!passSummary(resolvedMethod, sink)) {
+              return false;
+            }
+          } else if (resolvedMethod != null) {
+            visitedFiles.add(resolvedMethod.getContainingFile());
+            enqueueStatements(queue, seenElements, resolvedMethod);
+            // Whatever the method returns, a builder or a value derived from one, the return
+            // statements may carry setter calls
             if (resolvedMethod.getReturnType() != null) {
-              TypeName returnType = Field.resolveType(resolvedMethod.getReturnType());
-              if (!returnType.equals(builderType)) {
-                for (PsiReturnStatement returnStatement :
-                    PsiUtil.findReturnStatements(resolvedMethod)) {
-                  if (!seenElements.contains(returnStatement.getReturnValue())) {
-                    queue.offer(returnStatement.getReturnValue());
-                  }
-                }
-              } else {
-                // If the method returns a builder, then inspect the return statements for any
-                // setters
-                for (PsiReturnStatement returnStatement :
-                    PsiUtil.findReturnStatements(resolvedMethod)) {
-                  if (!seenElements.contains(returnStatement.getReturnValue())) {
-                    queue.offer(returnStatement.getReturnValue());
-                  }
-                }
+              for (PsiReturnStatement returnStatement :
+                  PsiUtil.findReturnStatements(resolvedMethod)) {
+                enqueue(queue, seenElements, returnStatement.getReturnValue());
               }
             }
           }
@@ -300,59 +557,149 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
 
         if (cur instanceof PsiReferenceExpressionImpl) {
           PsiElement resolvedElement = ((PsiReferenceExpressionImpl) cur).resolve();
-          if (resolvedElement instanceof PsiLocalVariable) {
-            PsiElement initializer = ((PsiLocalVariable) resolvedElement).getInitializer();
-            if (!seenElements.contains(initializer)) {
-              queue.offer(initializer);
-            }
-
-            Query<PsiReference> references =
-                ReferencesSearch.search(
-                    resolvedElement,
-                    GlobalSearchScope.fileScope(resolvedElement.getContainingFile()),
-                    false);
-
-            for (PsiReference reference : references) {
-              if (reference.getElement().getTextRange().getStartOffset()
-                  < cur.getTextRange().getStartOffset()) {
-                PsiElement referenceParent = reference.getElement().getParent();
-                if (!seenElements.contains(referenceParent)) {
-                  queue.offer(referenceParent);
-                }
-              }
+          if (resolvedElement instanceof PsiLocalVariable localVariable) {
+            enqueue(queue, seenElements, localVariable.getInitializer());
+            if (!walkUsages(localVariable, cur, queue, seenElements, sink)) {
+              return false;
             }
           }
 
           if (resolvedElement instanceof PsiField field
-              && cur.getParent() instanceof PsiAssignmentExpression) {
-            if (field.getContainingClass() == builderClass) {
-              mandatoryFields.remove(field.getName());
+              && cur.getParent() instanceof PsiAssignmentExpression
+              && isBuilder.test(field.getContainingClass())) {
+            if (visitedFiles != null) {
+              visitedFiles.add(field.getContainingFile());
+            }
+            if (!sink.test(field)) {
+              return false;
             }
           }
         }
 
         if (cur instanceof PsiMethodImpl method) {
-          if (method.getBody() != null) {
-            for (PsiStatement statement : method.getBody().getStatements()) {
-              if (!seenElements.contains(statement)) {
-                queue.offer(statement);
-              }
-            }
+          if (visitedFiles != null) {
+            visitedFiles.add(method.getContainingFile());
           }
+          enqueueStatements(queue, seenElements, method);
         }
 
-        for (PsiElement child : cur.getChildren()) {
-          if (!seenElements.contains(child)) {
-            queue.offer(child);
+        for (PsiElement child = cur.getFirstChild();
+            child != null;
+            child = child.getNextSibling()) {
+          if (!(child instanceof PsiJavaToken
+              || child instanceof PsiWhiteSpace
+              || child instanceof PsiComment)) {
+            enqueue(queue, seenElements, child);
           }
         }
       }
+      return true;
     }
 
-    return mandatoryFields;
+    /**
+     * Handles the uses of a local variable preceding the given reference to it. With control flow
+     * analysis the fields assigned by each use are collected separately, and only the fields
+     * assigned on every path to the reference are passed to the sink. Otherwise every use that
+     * textually precedes the reference is queued.
+     */
+    private boolean walkUsages(
+        PsiLocalVariable variable,
+        PsiElement reference,
+        Deque<PsiElement> queue,
+        Set<PsiElement> seenElements,
+        Predicate<PsiField> sink) {
+      LocalVariableReferences.References references = localReferences.of(variable);
+      Set<PsiField> assigned =
+          useControlFlowAnalysis
+              ? localReferences.holdingBefore(
+                  variable, reference, usage -> fieldsAssignedBy(usage, references))
+              : null;
+      if (assigned == null) {
+        int count = references.countBefore(reference.getTextRange().getStartOffset());
+        for (int i = 0; i < count; i++) {
+          enqueue(queue, seenElements, usageOf(references.elements()[i]));
+        }
+        return true;
+      }
+      for (PsiField field : assigned) {
+        if (!sink.test(field)) {
+          return false;
+        }
+      }
+      return !isOverBudget();
+    }
+
+    /**
+     * Returns the fields assigned by the use of a local variable through the given reference. The
+     * other references to the variable are skipped, their uses being accounted for separately.
+     */
+    private List<PsiField> fieldsAssignedBy(
+        PsiElement reference, LocalVariableReferences.References references) {
+      Set<PsiElement> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+      skipped.addAll(Arrays.asList(references.elements()));
+      List<PsiField> fields = new ArrayList<>();
+      walk(usageOf(reference), skipped, fields::add);
+      return fields;
+    }
+  }
+
+  /** Returns {@code true} for an argument list of the form {@code (null)}. */
+  private static boolean isNullArgument(PsiExpressionList arguments) {
+    return arguments.getExpressionCount() == 1
+        && arguments.getExpressions()[0] instanceof PsiLiteralExpression literal
+        && literal.getFirstChild() instanceof PsiJavaToken token
+        && token.getTokenType() == JavaTokenType.NULL_KEYWORD;
+  }
+
+  private static void enqueue(Deque<PsiElement> queue, Set<PsiElement> seen, PsiElement element) {
+    if (element != null && seen.add(element)) {
+      queue.offer(element);
+    }
   }
 
-  private List<String> getMandatoryFields(PsiClass aClass) {
+  private static void enqueueStatements(
+      Deque<PsiElement> queue, Set<PsiElement> seen, PsiMethod method) {
+    PsiCodeBlock body = method.getBody();
+    if (body != null) {
+      for (PsiStatement statement : body.getStatements()) {
+        enqueue(queue, seen, statement);
+      }
+    }
+  }
+
+  /**
+   * Returns the immutable set of fields that must be set before calling {@code build()}. The set
+   * is cached per builder class for each combination of the {@link #requireNotNullAnnotation}
+   * option and the nullability annotations configured for the project.
+   */
+  private RequiredFieldSet getMandatoryFields(PsiClass aClass) {
+    NullableNotNullManager manager = NullableNotNullManager.getInstance(aClass.getProject());
+    MandatoryFieldsKey key =
+        new MandatoryFieldsKey(
+            requireNotNullAnnotation,
+            List.copyOf(manager.getNullables()),
+            List.copyOf(manager.getNotNulls()));
+    BuilderDiagnostics.getInstance().cacheAccess(BuilderDiagnostics.MANDATORY_FIELDS);
+    return CachedValuesManager.getCachedValue(
+            aClass,
+            MANDATORY_FIELDS_KEY,
+            () ->
+                CachedValueProvider.Result.create(
+                    ConcurrentFactoryMap.<MandatoryFieldsKey, RequiredFieldSet>createMap(
+                        it -> {
+                          BuilderDiagnostics.getInstance()
+                              .cacheMiss(BuilderDiagnostics.MANDATORY_FIELDS);
+                          return new RequiredFieldSet(
+                              computeMandatoryFields(aClass, it.requireNotNullAnnotation()));
+                        }),
+                    aClass,
+                    PsiModificationTracker.getInstance(aClass.getProject())
+                        .forLanguage(JavaLanguage.INSTANCE)))
+        .get(key);
+  }
+
+  private static List<String> computeMandatoryFields(
+      PsiClass aClass, boolean requireNotNullAnnotation) {
     BuilderDescriptor descriptor = descriptorFor(aClass);
     NullableNotNullManager manager = NullableNotNullManager.getInstance(aClass.getProject());
 
@@ -392,6 +739,14 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
         checkbox(
             "requireNotNullAnnotation", "Only validate elements explicitly annotated as @NotNull"),
         checkbox("ignoreExternalBuilders", "Ignore Builders external to the current project"),
+        checkbox(
+            "useControlFlowAnalysis",
+            "Only count setters called on every control flow path before build()"),
+        number(
+            "maxVisitedNodes",
+            "Maximum PSI nodes analysed per build() call, excluding called methods",
+            1,
+            10_000_000),
         JavaInspectionControls.button(JavaInspectionButtons.ButtonKind.NULLABILITY_ANNOTATIONS));
   }
 
@@ -399,22 +754,34 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
   @Override
   public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
     return new JavaElementVisitor() {
+      private final LocalVariableReferences localReferences = new LocalVariableReferences();
+
       @Override
       public void visitMethodCallExpression(@NotNull PsiMethodCallExpression expression) {
         super.visitMethodCallExpression(expression);
+        if (!"build".equals(expression.getMethodExpression().getReferenceName())) {
+          return;
+        }
+        long start = BuilderDiagnostics.getInstance().start();
+        try {
+          visitBuildCall(expression);
+        } finally {
+          BuilderDiagnostics.getInstance().record(BuilderDiagnostics.INSPECTION_VISIT, start);
+        }
+      }
+
+      private void visitBuildCall(PsiMethodCallExpression expression) {
         PsiMethod resolvedMethod = expression.resolveMethod();
         if (resolvedMethod != null && Objects.equals(resolvedMethod.getName(), "build")) {
-          PsiClass builderClass = getContainingBuilderClass(resolvedMethod);
+          PsiClass builderClass = BuilderClasses.getContainingBuilderClass(resolvedMethod);
           if (builderClass == null) {
             return;
           }
-          PsiFile javaFile = builderClass.getContainingFile().getOriginalFile();
-          List<String> fields = processMissingFields(expression, builderClass);
-
-          if (ignoreExternalBuilders && javaFile.getVirtualFile().getPath().contains(".jar!/")) {
+          if (ignoreExternalBuilders && isExternalBuilder(builderClass)) {
             return;
           }
 
+          List<String> fields = processMissingFields(expression, builderClass, localReferences);
           if (!fields.isEmpty()) {
             holder.registerProblem(
                 expression,
@@ -429,6 +796,9 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
     };
   }
 
+  private record MandatoryFieldsKey(
+      boolean requireNotNullAnnotation, List<String> nullables, List<String> notNulls) {}
+
   private class ReplaceWithRequired implements LocalQuickFix {
     /**
      * Returns a partially localized string for the quick fix intention. Used by the test code for
@@ -456,7 +826,7 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
         return;
       }
 
-      PsiClass builderClass = getContainingBuilderClass(resolvedMethod);
+      PsiClass builderClass = BuilderClasses.getContainingBuilderClass(resolvedMethod);
       if (builderClass == null) {
         return;
       }
@@ -464,7 +834,7 @@ public class BuilderMissingRequiredFieldsInspection extends AbstractBaseJavaLoca
       BuilderDescriptor builderDescriptor = descriptorFor(builderClass);
 
       List<String> missingFields =
-          processMissingFields(expression, builderClass).stream()
+          processMissingFields(expression, builderClass, new LocalVariableReferences()).stream()
               .map(
                   it ->
                       Optional.ofNullable(builderDescriptor.methods().get(it))
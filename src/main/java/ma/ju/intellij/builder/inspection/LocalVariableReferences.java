@@ -0,0 +1,180 @@
+package ma.ju.intellij.builder.inspection;
+
+import com.intellij.psi.PsiCodeBlock;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiLocalVariable;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.controlFlow.AnalysisCanceledException;
+import com.intellij.psi.controlFlow.ControlFlow;
+import com.intellij.psi.controlFlow.ControlFlowFactory;
+import com.intellij.psi.controlFlow.ControlFlowUtil;
+import com.intellij.psi.controlFlow.Instruction;
+import com.intellij.psi.search.LocalSearchScope;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Memoizes the references of local builder variables for the duration of one visitor pass. A
+ * local variable can only be referenced from its enclosing code block, so the search is limited
+ * to that block instead of querying the index for the whole file.
+ */
+final class LocalVariableReferences {
+  private final Map<PsiLocalVariable, References> references = new HashMap<>();
+  private final Map<PsiElement, ControlFlow> flows = new HashMap<>();
+
+  /** Returns the references of the variable, sorted by their start offset. */
+  References of(PsiLocalVariable variable) {
+    return references.computeIfAbsent(variable, LocalVariableReferences::search);
+  }
+
+  /**
+   * Returns the facts holding on every control flow path reaching the anchor, where each reference
+   * of the variable preceding the anchor establishes the facts the function returns for it, or
+   * {@code null} if no control flow graph covering both is available.
+   */
+  <T> Set<T> holdingBefore(
+      PsiLocalVariable variable,
+      PsiElement anchor,
+      Function<PsiElement, ? extends Collection<T>> facts) {
+    PsiElement fragment;
+    try {
+      fragment = ControlFlowUtil.findCodeFragment(anchor);
+    } catch (IllegalStateException e) {
+      return null;
+    }
+    if (!PsiTreeUtil.isAncestor(fragment, variable, true)) {
+      return null;
+    }
+    ControlFlow flow = flows.computeIfAbsent(fragment, LocalVariableReferences::controlFlow);
+    int anchorOffset = flow == null ? -1 : flow.getStartOffset(anchor);
+    if (anchorOffset < 0) {
+      return null;
+    }
+
+    List<T> universe = new ArrayList<>();
+    Map<T, Integer> indices = new HashMap<>();
+    BitSet[] gen = new BitSet[flow.getSize()];
+    for (PsiElement element : of(variable).elements()) {
+      int offset = flow.getStartOffset(element);
+      if (offset < 0 || offset >= anchorOffset) {
+        continue;
+      }
+      if (gen[offset] == null) {
+        gen[offset] = new BitSet();
+      }
+      for (T fact : facts.apply(element)) {
+        Integer index = indices.get(fact);
+        if (index == null) {
+          index = universe.size();
+          indices.put(fact, index);
+          universe.add(fact);
+        }
+        gen[offset].set(index);
+      }
+    }
+
+    BitSet holding = mustHold(flow, gen, anchorOffset);
+    Set<T> result = new LinkedHashSet<>();
+    for (int i = holding.nextSetBit(0); i >= 0; i = holding.nextSetBit(i + 1)) {
+      result.add(universe.get(i));
+    }
+    return result;
+  }
+
+  private static ControlFlow controlFlow(PsiElement fragment) {
+    try {
+      return ControlFlowFactory.getControlFlowNoConstantEvaluate(fragment);
+    } catch (AnalysisCanceledException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Forward must-analysis over the control flow graph: a fact is in the result if it is generated
+   * on every path from the entry to the target instruction. Instructions are processed in offset
+   * order, so structured code converges in a single pass.
+   */
+  private static BitSet mustHold(ControlFlow flow, BitSet[] gen, int target) {
+    List<Instruction> instructions = flow.getInstructions();
+    int size = instructions.size();
+    BitSet[] in = new BitSet[size + 1];
+    in[0] = new BitSet();
+    BitSet pending = new BitSet(size + 1);
+    pending.set(0);
+    for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(0)) {
+      pending.clear(i);
+      if (i >= size) {
+        continue;
+      }
+      BitSet out = in[i];
+      if (gen[i] != null && !isSubset(gen[i], out)) {
+        out = (BitSet) out.clone();
+        out.or(gen[i]);
+      }
+      Instruction instruction = instructions.get(i);
+      for (int n = 0; n < instruction.nNext(); n++) {
+        int next = instruction.getNext(i, n);
+        if (next < 0 || next > size) {
+          continue;
+        }
+        if (in[next] == null) {
+          in[next] = out;
+          pending.set(next);
+        } else if (!isSubset(in[next], out)) {
+          BitSet merged = (BitSet) in[next].clone();
+          merged.and(out);
+          in[next] = merged;
+          pending.set(next);
+        }
+      }
+    }
+    return in[target] == null ? new BitSet() : in[target];
+  }
+
+  private static boolean isSubset(BitSet set, BitSet of) {
+    for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+      if (!of.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static References search(PsiLocalVariable variable) {
+    PsiCodeBlock block = PsiTreeUtil.getParentOfType(variable, PsiCodeBlock.class);
+    SearchScope scope = block != null ? new LocalSearchScope(block) : variable.getUseScope();
+    List<PsiElement> elements = new ArrayList<>();
+    for (PsiReference reference : ReferencesSearch.search(variable, scope, false)) {
+      elements.add(reference.getElement());
+    }
+    elements.sort(Comparator.comparingInt(it -> it.getTextRange().getStartOffset()));
+
+    int[] offsets = new int[elements.size()];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = elements.get(i).getTextRange().getStartOffset();
+    }
+    return new References(elements.toArray(PsiElement[]::new), offsets);
+  }
+
+  record References(PsiElement[] elements, int[] offsets) {
+    /** Returns the number of references starting before the given offset. */
+    int countBefore(int offset) {
+      int count = 0;
+      while (count < offsets.length && offsets[count] < offset) {
+        count++;
+      }
+      return count;
+    }
+  }
+}
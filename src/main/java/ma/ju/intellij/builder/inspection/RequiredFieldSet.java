@@ -0,0 +1,63 @@
+package ma.ju.intellij.builder.inspection;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of the fields a builder requires prior to calling {@code build()}. Every field is
+ * given a bit index so the assignments found while analysing a call site can be tracked in a
+ * {@link BitSet} instead of a list of names.
+ */
+final class RequiredFieldSet {
+  private final String[] names;
+  private final Map<String, Integer> indices;
+
+  RequiredFieldSet(List<String> names) {
+    this.names = names.toArray(new String[0]);
+    this.indices = new HashMap<>(names.size() * 2);
+    for (int i = 0; i < this.names.length; i++) {
+      indices.put(this.names[i], i);
+    }
+  }
+
+  Tracker newTracker() {
+    return new Tracker();
+  }
+
+  /** Mutable view recording which of the required fields have been assigned. */
+  final class Tracker {
+    private final BitSet assigned = new BitSet(names.length);
+    private int remaining = names.length;
+
+    /**
+     * Marks the field as assigned.
+     *
+     * @return {@code true} if the field is required and was not assigned before
+     */
+    boolean assign(String name) {
+      Integer index = indices.get(name);
+      if (index == null || assigned.get(index)) {
+        return false;
+      }
+      assigned.set(index);
+      remaining--;
+      return true;
+    }
+
+    boolean isComplete() {
+      return remaining == 0;
+    }
+
+    /** Returns the required fields that have not been assigned, in declaration order. */
+    List<String> missing() {
+      List<String> missing = new ArrayList<>(remaining);
+      for (int i = assigned.nextClearBit(0); i < names.length; i = assigned.nextClearBit(i + 1)) {
+        missing.add(names[i]);
+      }
+      return missing;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package ma.ju.intellij.builder.psi;
+
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.squareup.javapoet.ClassName;
+import ma.ju.intellij.builder.index.BuilderIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Recognizes generated builder classes. The results are cached per {@link PsiClass} until the
+ * java structure of the project changes, so recognizing a builder is a lookup after the first
+ * hit.
+ */
+public class BuilderClasses {
+  private static final Key<CachedValue<ClassName>> TYPE_KEY =
+      Key.create("ma.ju.intellij.builder.psi.type");
+  private static final Key<CachedValue<ClassName>> BUILT_TYPE_KEY =
+      Key.create("ma.ju.intellij.builder.psi.builtType");
+
+  /** Returns the name of the given class, falling back to {@link Object} if it can't be parsed. */
+  public static @NotNull ClassName typeOf(@NotNull PsiClass psiClass) {
+    return CachedValuesManager.getCachedValue(
+        psiClass,
+        TYPE_KEY,
+        () -> CachedValueProvider.Result.create(computeType(psiClass), dependencies(psiClass)));
+  }
+
+  /**
+   * Returns the type built by the given builder class: a nested class named {@code Builder}
+   * declaring a {@code build()} method that returns its containing class.
+   *
+   * @return the type of the containing class or {@code null} if the class isn't a builder
+   */
+  public static @Nullable ClassName builtType(@Nullable PsiClass psiClass) {
+    if (psiClass == null
+        || !"Builder".equals(psiClass.getName())
+        || psiClass.getContainingClass() == null) {
+      return null;
+    }
+    return CachedValuesManager.getCachedValue(
+        psiClass,
+        BUILT_TYPE_KEY,
+        () ->
+            CachedValueProvider.Result.create(
+                computeBuiltType(psiClass), dependencies(psiClass)));
+  }
+
+  public static boolean isBuilder(@Nullable PsiClass psiClass) {
+    return builtType(psiClass) != null;
+  }
+
+  /** Returns the builder class declaring the given method or one of its containing classes. */
+  public static @Nullable PsiClass getContainingBuilderClass(@NotNull PsiMethod method) {
+    PsiClass aClass = method.getContainingClass();
+    while (aClass != null && !isBuilder(aClass)) {
+      aClass = aClass.getContainingClass();
+    }
+    return aClass;
+  }
+
+  private static ClassName computeType(PsiClass psiClass) {
+    try {
+      if (psiClass.getQualifiedName() != null) {
+        return ClassName.bestGuess(psiClass.getQualifiedName());
+      } else if (psiClass.getName() != null) {
+        return ClassName.bestGuess(psiClass.getName());
+      }
+      return ClassName.get(Object.class);
+    } catch (Exception e) {
+      return ClassName.get(Object.class);
+    }
+  }
+
+  private static ClassName computeBuiltType(PsiClass builderClass) {
+    PsiClass containingClass = builderClass.getContainingClass();
+    if (containingClass == null) {
+      return null;
+    }
+    // the index lists the builder's methods, so a class without build() is rejected unresolved
+    BuilderIndex.Entry entry = BuilderIndex.of(builderClass);
+    if (entry != null && entry.setter("build", 0) == null) {
+      return null;
+    }
+    ClassName type = typeOf(containingClass);
+    for (PsiMethod method : builderClass.findMethodsByName("build", false)) {
+      if (!method.hasParameters()
+          && method.getReturnType() != null
+          && Field.resolveType(method.getReturnType()).equals(type)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  private static Object[] dependencies(PsiClass psiClass) {
+    return new Object[] {
+      psiClass,
+      PsiModificationTracker.getInstance(psiClass.getProject()).forLanguage(JavaLanguage.INSTANCE)
+    };
+  }
+}
@@ -86,7 +86,7 @@ public class BuilderCollector {
         }
 
         if (field.hasModifierProperty(PsiModifier.FINAL)) {
-          if (field.getInitializer() != null) {
+          if (field.hasInitializer()) {
             continue; // skip final fields that are assigned in the declaration
           }
 
@@ -1,21 +1,36 @@
 package ma.ju.intellij.builder.psi;
 
+import com.intellij.psi.JavaTokenType;
+import com.intellij.psi.PsiAssignmentExpression;
+import com.intellij.psi.PsiBinaryExpression;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiCodeBlock;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiConditionalExpression;
+import com.intellij.psi.PsiExpression;
+import com.intellij.psi.PsiExpressionStatement;
 import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiJavaToken;
+import com.intellij.psi.PsiLiteralExpression;
 import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiMethodCallExpression;
 import com.intellij.psi.PsiModifier;
-import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiParenthesizedExpression;
+import com.intellij.psi.PsiPolyadicExpression;
+import com.intellij.psi.PsiReferenceExpression;
+import com.intellij.psi.PsiReturnStatement;
+import com.intellij.psi.PsiStatement;
+import com.intellij.psi.PsiThisExpression;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.squareup.javapoet.ClassName;
-import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 
 public record BuilderDescriptor(Map<String, PsiMethod> methods, Map<String, Field> fields) {
   public BuilderDescriptor() {
@@ -110,53 +125,143 @@ public record BuilderDescriptor(Map<String, PsiMethod> methods, Map<String, Fiel
     return descriptor;
   }
 
+  /**
+   * Returns {@code true} if the body of the setter is one of the shapes generated for it, meaning
+   * it holds no custom code: an assignment of the parameter to the field, optionally wrapped in a
+   * null check, followed by {@code return this}. The statements are matched structurally, so
+   * whitespace is ignored while comments make the body custom.
+   */
   public static boolean builderMethodSame(PsiMethod source) {
-    Set<String> methods = new HashSet<>();
-    String name = getName(source.getName());
     if (source.getParameterList().getParametersCount() != 1) {
       return false;
     }
+    PsiCodeBlock body = source.getBody();
+    if (body == null) {
+      return false;
+    }
+    PsiStatement[] statements = body.getStatements();
+    if (statements.length != 2
+        || !(statements[1] instanceof PsiReturnStatement returnStatement)
+        || !isThis(returnStatement.getReturnValue())
+        || !(statements[0] instanceof PsiExpressionStatement statement)
+        || !(statement.getExpression() instanceof PsiAssignmentExpression assignment)
+        || assignment.getOperationTokenType() != JavaTokenType.EQ
+        || PsiTreeUtil.findChildOfType(body, PsiComment.class) != null) {
+      return false;
+    }
+
+    String name = getName(source.getName());
+    if (!(assignment.getLExpression() instanceof PsiReferenceExpression field)
+        || !name.equals(field.getReferenceName())
+        || !isThis(field.getQualifierExpression())) {
+      return false;
+    }
+
+    PsiExpression value = assignment.getRExpression();
+    if (isReference(value, name) || isRequireNonNull(value, name) || isBlankAsNull(value, name)) {
+      return true;
+    }
     TypeName type =
         Field.resolveType(
             Objects.requireNonNull(source.getParameterList().getParameter(0)).getType());
-    methods.add(
-        CodeBlock.builder()
-            .addStatement("this.$L = $L", name, name)
-            .addStatement("return this")
-            .build()
-            .toString());
-    methods.add(
-        CodeBlock.builder()
-            .addStatement("this.$L = $T.requireNonNull($L)", name, Objects.class, name)
-            .addStatement("return this")
-            .build()
-            .toString());
-    methods.add(
-        CodeBlock.builder()
-            .addStatement("this.$L = Objects.requireNonNull($L)", name, name)
-            .addStatement("return this")
-            .build()
-            .toString());
-    if (BuilderTypeGenerator.isCollection(type)) {
-      methods.add(
-          CodeBlock.builder()
-              .addStatement("this.$L = ($L == null) ? $T.of() : $L", name, name, type, name)
-              .addStatement("return this")
-              .build()
-              .toString());
+    return BuilderTypeGenerator.isCollection(type) && isNullAsEmpty(value, name, type);
+  }
+
+  /**
+   * Matches {@code Objects.requireNonNull(name)} and {@code Objects.requireNonNull(name, "...")},
+   * the latter being the form the generated setters use.
+   */
+  private static boolean isRequireNonNull(PsiExpression value, String name) {
+    if (!(value instanceof PsiMethodCallExpression call)
+        || !"requireNonNull".equals(call.getMethodExpression().getReferenceName())
+        || !isClass(call.getMethodExpression().getQualifierExpression(), "java.util.Objects")) {
+      return false;
+    }
+    PsiExpression[] arguments = call.getArgumentList().getExpressions();
+    return (arguments.length == 1 || (arguments.length == 2 && isString(arguments[1])))
+        && isReference(arguments[0], name);
+  }
+
+  /** Matches {@code (name == null || name.isBlank()) ? null : name}. */
+  private static boolean isBlankAsNull(PsiExpression value, String name) {
+    return value instanceof PsiConditionalExpression conditional
+        && conditional.getCondition() instanceof PsiParenthesizedExpression parenthesized
+        && parenthesized.getExpression() instanceof PsiPolyadicExpression condition
+        && condition.getOperationTokenType() == JavaTokenType.OROR
+        && condition.getOperands().length == 2
+        && isNullCheck(condition.getOperands()[0], name)
+        && condition.getOperands()[1] instanceof PsiMethodCallExpression isBlank
+        && "isBlank".equals(isBlank.getMethodExpression().getReferenceName())
+        && isBlank.getArgumentList().isEmpty()
+        && isReference(isBlank.getMethodExpression().getQualifierExpression(), name)
+        && isNull(conditional.getThenExpression())
+        && isReference(conditional.getElseExpression(), name);
+  }
+
+  /** Matches {@code (name == null) ? Type.of() : name} for the raw type of the collection. */
+  private static boolean isNullAsEmpty(PsiExpression value, String name, TypeName type) {
+    TypeName rawType = type instanceof ParameterizedTypeName pt ? pt.rawType : type;
+    return value instanceof PsiConditionalExpression conditional
+        && conditional.getCondition() instanceof PsiParenthesizedExpression parenthesized
+        && isNullCheck(parenthesized.getExpression(), name)
+        && conditional.getThenExpression() instanceof PsiMethodCallExpression of
+        && "of".equals(of.getMethodExpression().getReferenceName())
+        && of.getArgumentList().isEmpty()
+        && isClass(of.getMethodExpression().getQualifierExpression(), rawType.toString())
+        && isReference(conditional.getElseExpression(), name);
+  }
+
+  /** Matches {@code name == null}. */
+  private static boolean isNullCheck(PsiExpression expression, String name) {
+    return expression instanceof PsiBinaryExpression binary
+        && binary.getOperationTokenType() == JavaTokenType.EQEQ
+        && isReference(binary.getLOperand(), name)
+        && isNull(binary.getROperand());
+  }
+
+  private static boolean isReference(PsiExpression expression, String name) {
+    return expression instanceof PsiReferenceExpression reference
+        && reference.getQualifierExpression() == null
+        && name.equals(reference.getReferenceName());
+  }
+
+  private static boolean isThis(PsiExpression expression) {
+    return expression instanceof PsiThisExpression self && self.getQualifier() == null;
+  }
+
+  private static boolean isString(PsiExpression expression) {
+    return expression instanceof PsiLiteralExpression literal
+        && literal.getValue() instanceof String;
+  }
+
+  private static boolean isNull(PsiExpression expression) {
+    return expression instanceof PsiLiteralExpression literal
+        && literal.getFirstChild() instanceof PsiJavaToken token
+        && token.getTokenType() == JavaTokenType.NULL_KEYWORD;
+  }
+
+  /**
+   * Matches a reference to the class written with its simple or its qualified name, e.g. {@code
+   * Objects} or {@code java.util.Objects}.
+   */
+  private static boolean isClass(PsiExpression expression, String qualifiedName) {
+    int end = qualifiedName.length();
+    while (expression instanceof PsiReferenceExpression reference) {
+      String name = reference.getReferenceName();
+      int start = end - (name == null ? 0 : name.length());
+      if (name == null
+          || start < 0
+          || !qualifiedName.startsWith(name, start)
+          || (start > 0 && qualifiedName.charAt(start - 1) != '.')) {
+        return false;
+      }
+      expression = reference.getQualifierExpression();
+      if (expression == null) {
+        return true;
+      }
+      end = start - 1;
     }
-    methods.add(
-        CodeBlock.builder()
-            .addStatement(
-                "this.$L = ($L == null || $L.isBlank()) ? null : $L", name, name, name, name)
-            .addStatement("return this")
-            .build()
-            .toString());
-    String signature =
-        source.getBody() == null ? "" : source.getBody().getText().replaceAll("\\s+", "");
-    return methods.stream()
-        .map(it -> "{" + it.replaceAll("\\s+", "") + "}")
-        .anyMatch(it -> it.equals(signature));
+    return false;
   }
 
   public static String getName(String name) {
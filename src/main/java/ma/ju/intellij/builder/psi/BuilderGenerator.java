@@ -1,14 +1,20 @@
 package ma.ju.intellij.builder.psi;
 
 import com.intellij.codeInsight.NullableNotNullManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.JavaPsiFacade;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementFactory;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiImportList;
+import com.intellij.psi.PsiImportStatementBase;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiStatement;
+import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.codeStyle.CodeStyleManager;
 import com.intellij.psi.codeStyle.JavaCodeStyleManager;
 import com.squareup.javapoet.AnnotationSpec;
@@ -16,13 +22,19 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeName;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.lang.model.element.Modifier;
+import ma.ju.intellij.builder.diagnostics.BuilderDiagnostics;
 import ma.ju.intellij.builder.ide.RecordMemberChooser;
 import org.jetbrains.annotations.NotNull;
 
@@ -32,7 +44,7 @@ public class BuilderGenerator {
     generate(
         recordClass,
         RecordMemberChooser.mapRecordComponentNames(recordClass),
-        BuilderSettings.init());
+        BuilderSettings.of(recordClass.getProject()));
   }
 
   public static void generate(PsiClass recordClass, BuilderSettings settings) {
@@ -40,62 +52,114 @@ public class BuilderGenerator {
   }
 
   public static void generate(PsiClass recordClass, List<Field> selected) {
-    generate(recordClass, selected, BuilderSettings.init());
+    generate(recordClass, selected, BuilderSettings.of(recordClass.getProject()));
   }
 
   public static void generate(
       PsiClass recordClass, List<Field> selected, BuilderSettings settings) {
-    if (recordClass.isInterface()) {
-      CodeBlock.Builder block = CodeBlock.builder();
+    apply(plan(recordClass, selected, settings));
+  }
 
+  /**
+   * Computes everything the generation of the builder needs without modifying the physical PSI, so
+   * it can run in a background read action. The result is applied by {@link #apply}.
+   */
+  public static GenerationPlan plan(
+      PsiClass recordClass, List<Field> selected, BuilderSettings settings) {
+    long start = BuilderDiagnostics.getInstance().start();
+    try {
+      return planRecord(recordClass, selected, settings);
+    } finally {
+      BuilderDiagnostics.getInstance().record(BuilderDiagnostics.GENERATE_PLAN, start);
+    }
+  }
+
+  private static GenerationPlan planRecord(
+      PsiClass recordClass, List<Field> selected, BuilderSettings settings) {
+    Field[] selectedFields = selected.toArray(new Field[0]);
+    if (recordClass.isInterface()) {
       String className = recordClass.getName() + "Record";
       for (PsiClass psiClass : recordClass.getInnerClasses()) {
         if (className.equals(psiClass.getName())) {
-          generate(psiClass, selected, settings);
-          return;
+          return planRecord(psiClass, selected, settings);
         }
       }
+      // the record implementing the interface has to be declared before it can be planned
+      return new GenerationPlan(
+          recordClass, selectedFields, settings, null, null, null, null, null, null);
+    }
 
-      block.add("public record $LRecord(", recordClass.getName());
-      for (int i = 0; i < selected.size(); i++) {
-        Field field = selected.get(i);
-        if (i > 0) {
-          block.add(", ");
-        }
-        block.add("$L $L", field.typeName(), field.name());
+    PsiClass existingBuilder = null;
+    for (PsiClass innerClass : recordClass.getInnerClasses()) {
+      if ("Builder".equals(innerClass.getName())) {
+        existingBuilder = innerClass;
       }
+    }
+    PsiClass builderClass =
+        BuilderTypeGenerator.prepare(recordClass, selectedFields, existingBuilder, settings);
 
-      block.add(") implements $L {}\n", recordClass.getName());
+    boolean hasToString =
+        Arrays.stream(recordClass.getAllMethods())
+            .anyMatch(
+                m ->
+                    m.getName().equals("toString")
+                        && m.getParameterList().getParametersCount() == 0
+                        && m.isWritable());
+    PsiMethod toStringMethod =
+        !hasToString && settings.generateToStringMethod()
+            ? createToStringMethod(recordClass, selectedFields, settings)
+            : null;
+    PsiMethod builderMethod =
+        settings.generateBuilderMethod() && !settings.builderMethodInBuilder()
+            ? createBuilderMethod(recordClass, settings)
+            : null;
+    PsiMethod toBuilderMethod =
+        settings.generateCopyMethod() ? createToBuilderMethod(recordClass, settings) : null;
+    PsiMethod constructor =
+        createRecordConstructor(recordClass, selectedFields, settings).orElse(null);
+
+    return new GenerationPlan(
+        recordClass,
+        selectedFields,
+        settings,
+        existingBuilder,
+        builderClass,
+        toStringMethod,
+        builderMethod,
+        toBuilderMethod,
+        constructor);
+  }
 
-      PsiElementFactory elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
-      PsiClass dummyClass =
-          elementFactory.createClassFromText(block.build().toString(), recordClass);
-      dummyClass.setName(className);
-      PsiClass record =
-          dummyClass.getInnerClasses().length > 0 ? dummyClass.getInnerClasses()[0] : dummyClass;
-      generate(
-          (PsiClass) recordClass.addBefore(record, recordClass.getLastChild()), selected, settings);
-      return;
+  /** Writes a plan computed by {@link #plan} to the record. Must run in a write action. */
+  public static void apply(GenerationPlan plan) {
+    long start = BuilderDiagnostics.getInstance().start();
+    try {
+      applyPlan(plan);
+    } finally {
+      BuilderDiagnostics.getInstance().record(BuilderDiagnostics.GENERATE_APPLY, start);
     }
+  }
 
-    PsiElement builderClass = null;
-    Field[] selectedFields = selected.toArray(new Field[0]);
-    for (PsiClass innerClass : recordClass.getInnerClasses()) {
-      if ("Builder".equals(innerClass.getName())) {
-        builderClass = innerClass;
-      }
+  private static void applyPlan(GenerationPlan plan) {
+    PsiClass recordClass = plan.recordClass();
+    BuilderSettings settings = plan.settings();
+    Set<PsiImportStatementBase> importsInUse = importsInUse(recordClass.getContainingFile());
+    if (plan.builderClass() == null) {
+      PsiClass added = declareInterfaceRecord(recordClass, plan.fields());
+      applyPlan(planRecord(added, Arrays.asList(plan.fields()), settings));
+      // the generated record declaration is new as a whole, not just its builder members
+      formatRecordCode(recordClass, List.of(added), importsInUse);
+      return;
     }
+
     removeBuilderMethods(recordClass, settings);
     // denotes the `}` token that declares the end of the class
     PsiElement position = recordClass.getLastChild();
     // create builder pattern structures and add them to the record
-    if (builderClass != null) {
-      createBuilderClass(recordClass, selectedFields, (PsiClass) builderClass, settings);
-    } else {
-      builderClass =
-          recordClass.addBefore(
-              createBuilderClass(recordClass, selectedFields, null, settings), position);
-    }
+    PsiElement builderClass =
+        plan.existingBuilder() != null
+            ? plan.existingBuilder().replace(plan.builderClass())
+            : recordClass.addBefore(plan.builderClass(), position);
 
     PsiElement toStringMethod = null;
     for (PsiMethod m : recordClass.getAllMethods()) {
@@ -108,41 +172,77 @@ public class BuilderGenerator {
       }
     }
 
+    List<PsiElement> changed = new ArrayList<>();
+    changed.add(builderClass);
     if (toStringMethod != null) {
-      recordClass.addBefore(toStringMethod, builderClass);
-    } else if (settings.generateToStringMethod()) {
-      PsiMethod method = createToStringMethod(recordClass, selectedFields, settings);
-      if (method != null) {
-        recordClass.addBefore(method, builderClass);
-      }
+      changed.add(recordClass.addBefore(toStringMethod, builderClass));
+    } else if (plan.toStringMethod() != null) {
+      changed.add(recordClass.addBefore(plan.toStringMethod(), builderClass));
     }
 
     PsiElement builderMethod =
-        settings.generateBuilderMethod() && !settings.builderMethodInBuilder()
-            ? recordClass.addBefore(createBuilderMethod(recordClass), builderClass)
+        plan.builderMethod() != null
+            ? recordClass.addBefore(plan.builderMethod(), builderClass)
             : builderClass;
 
     PsiElement toBuilderMethod =
-        settings.generateCopyMethod()
-            ? recordClass.addBefore(createToBuilderMethod(recordClass), builderMethod)
+        plan.toBuilderMethod() != null
+            ? recordClass.addBefore(plan.toBuilderMethod(), builderMethod)
             : builderMethod;
+    changed.add(builderMethod);
+    changed.add(toBuilderMethod);
 
-    Optional<PsiMethod> constructor =
-        createRecordConstructor(recordClass, selectedFields, settings);
     PsiElement firstMethod =
         Arrays.stream(recordClass.getAllMethods())
             .findFirst()
             .map(it -> (PsiElement) it)
             .orElse(toBuilderMethod);
 
-    constructor.ifPresent(psiMethod -> recordClass.addBefore(psiMethod, firstMethod));
+    if (plan.constructor() != null) {
+      changed.add(recordClass.addBefore(plan.constructor(), firstMethod));
+    }
     if (!recordClass.isRecord()) {
-      writeGetters(recordClass, selectedFields, settings);
+      changed.addAll(writeGetters(recordClass, plan.fields(), settings));
     }
-    formatRecordCode(recordClass, builderClass);
+    formatRecordCode(recordClass, changed, importsInUse);
+  }
+
+  private static PsiClass declareInterfaceRecord(PsiClass interfaceClass, Field[] fields) {
+    CodeBlock.Builder block = CodeBlock.builder();
+    String className = interfaceClass.getName() + "Record";
+    block.add("public record $LRecord(", interfaceClass.getName());
+    for (int i = 0; i < fields.length; i++) {
+      Field field = fields[i];
+      if (i > 0) {
+        block.add(", ");
+      }
+      block.add("$L $L", field.typeName(), field.name());
+    }
+
+    block.add(") implements $L {}\n", interfaceClass.getName());
+
+    PsiElementFactory elementFactory =
+        JavaPsiFacade.getElementFactory(interfaceClass.getProject());
+    PsiClass dummyClass =
+        elementFactory.createClassFromText(block.build().toString(), interfaceClass);
+    dummyClass.setName(className);
+    PsiClass record =
+        dummyClass.getInnerClasses().length > 0 ? dummyClass.getInnerClasses()[0] : dummyClass;
+    return (PsiClass) interfaceClass.addBefore(record, interfaceClass.getLastChild());
   }
 
   public static void delete(PsiClass recordClass, List<Field> selected, BuilderSettings settings) {
+    long start = BuilderDiagnostics.getInstance().start();
+    try {
+      deleteBuilder(recordClass, selected, settings);
+    } finally {
+      BuilderDiagnostics.getInstance().record(BuilderDiagnostics.DELETE, start);
+    }
+  }
+
+  private static void deleteBuilder(
+      PsiClass recordClass, List<Field> selected, BuilderSettings settings) {
+    Set<PsiImportStatementBase> importsInUse = importsInUse(recordClass.getContainingFile());
     removeBuilderMethods(recordClass, settings);
     PsiClass recordClassCopy = (PsiClass) recordClass.copy();
     PsiClass generatedBuilder =
@@ -215,14 +315,14 @@ public class BuilderGenerator {
     List<Field> remaining = getComponents(builderClass);
     if (remaining.isEmpty()) {
       builderClass.delete();
-      formatRecordCode(recordClass, builderClass);
+      formatRecordCode(recordClass, List.of(recordClass), importsInUse);
       return;
     }
     Set<String> names = remaining.stream().map(Field::name).collect(Collectors.toSet());
     List<Field> regenerate =
         getComponents(recordClass).stream().filter(it -> names.contains(it.name())).toList();
     if (regenerate.isEmpty()) {
-      formatRecordCode(recordClass, builderClass);
+      formatRecordCode(recordClass, List.of(recordClass), importsInUse);
       return;
     }
     // Regenerate the builder
@@ -240,15 +340,20 @@ public class BuilderGenerator {
   }
 
   public static PsiMethod createEntityConstructor(PsiClass recordClass, Field[] components) {
+    return createEntityConstructor(
+        recordClass, components, BuilderSettings.of(recordClass.getProject()));
+  }
+
+  public static PsiMethod createEntityConstructor(
+      PsiClass recordClass, Field[] components, BuilderSettings settings) {
     PsiElementFactory elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
     MethodSpec.Builder builder =
         MethodSpec.constructorBuilder()
             .addModifiers(Modifier.PRIVATE)
             .addParameter(ClassName.bestGuess("Builder"), "builder");
-    BuilderSettings settings = BuilderSettings.settings();
     for (Field component : components) {
 
-      CodeBlock tpl = CodeBlock.builder().add("builder.$L", component.name()).build();
+      CodeBlock tpl = CodeBlock.of("builder.$L", component.name());
       boolean isCollectionType = BuilderTypeGenerator.isCollection(component.typeName());
       boolean isNotNull =
           settings.nullHandlingRequired()
@@ -256,15 +361,7 @@ public class BuilderGenerator {
               : NullableNotNullManager.isNotNull(component.source());
 
       if (settings.immutableCollections() && isCollectionType) {
-        tpl =
-            isNotNull
-                ? CodeBlock.builder().add("$L.copyOf($L)", component.rawType(), tpl).build()
-                : CodeBlock.builder()
-                    .add(
-                        "Optional.ofNullable($L).map($L::copyOf).orElse(null)",
-                        tpl,
-                        component.rawType())
-                    .build();
+        tpl = immutableCopy(tpl, component.rawType(), isNotNull, settings);
       }
       builder.addStatement("this.$L = $L", component.name(), tpl);
     }
@@ -272,8 +369,25 @@ public class BuilderGenerator {
     return elementFactory.createMethodFromText(builder.build().toString(), recordClass);
   }
 
-  public static void writeGetters(
+  /**
+   * Returns the expression copying the given collection into an immutable one. A nullable value is
+   * copied through a null-checked ternary with {@link BuilderSettings#nullCheckedCopies()}, which
+   * unlike the {@code Optional} chain doesn't allocate when the record is constructed.
+   */
+  public static CodeBlock immutableCopy(
+      CodeBlock value, TypeName rawType, boolean isNotNull, BuilderSettings settings) {
+    if (isNotNull) {
+      return CodeBlock.of("$L.copyOf($L)", rawType, value);
+    } else if (settings.nullCheckedCopies()) {
+      return CodeBlock.of("$L == null ? null : $L.copyOf($L)", value, rawType, value);
+    }
+    return CodeBlock.of("Optional.ofNullable($L).map($L::copyOf).orElse(null)", value, rawType);
+  }
+
+  /** Writes the getters of the components and returns the methods added to the class. */
+  public static List<PsiElement> writeGetters(
       PsiClass recordClass, Field[] components, BuilderSettings settings) {
+    List<PsiElement> getters = new ArrayList<>();
     PsiElement builder = recordClass.getConstructors()[recordClass.getConstructors().length - 1];
     PsiElementFactory elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
 
@@ -323,6 +437,7 @@ public class BuilderGenerator {
               recordClass.addAfter(
                   elementFactory.createMethodFromText(method.build().toString(), recordClass),
                   existingMethod);
+          getters.add(builder);
           existingMethod.delete();
           continue;
         }
@@ -333,13 +448,15 @@ public class BuilderGenerator {
       builder =
           recordClass.addAfter(
               elementFactory.createMethodFromText(method.build().toString(), recordClass), builder);
+      getters.add(builder);
     }
+    return getters;
   }
 
   public static Optional<PsiMethod> createRecordConstructor(
       PsiClass recordClass, Field[] components, BuilderSettings settings) {
     if (!recordClass.isRecord()) {
-      return Optional.of(createEntityConstructor(recordClass, components));
+      return Optional.of(createEntityConstructor(recordClass, components, settings));
     }
     PsiElementFactory elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
     CodeBlock.Builder cb = CodeBlock.builder().beginControlFlow("public " + recordClass.getName());
@@ -352,7 +469,7 @@ public class BuilderGenerator {
 
     int count = 0;
     for (Field component : components) {
-      CodeBlock tpl = CodeBlock.builder().add("$L", component.name()).build();
+      CodeBlock tpl = CodeBlock.of("$L", component.name());
       boolean isCollectionType = BuilderTypeGenerator.isCollection(component.typeName());
       boolean isNotNull =
           settings.nullHandlingRequired()
@@ -374,15 +491,7 @@ public class BuilderGenerator {
       }
 
       if (settings.immutableCollections() && isCollectionType) {
-        tpl =
-            isNotNull
-                ? CodeBlock.builder().add("$L.copyOf($L)", component.rawType(), tpl).build()
-                : CodeBlock.builder()
-                    .add(
-                        "Optional.ofNullable($L).map($L::copyOf).orElse(null)",
-                        tpl,
-                        component.rawType())
-                    .build();
+        tpl = immutableCopy(tpl, component.rawType(), isNotNull, settings);
         cb.addStatement("$L = $L", component.name(), tpl);
         count++;
       } else if (count > index) {
@@ -412,10 +521,14 @@ public class BuilderGenerator {
   }
 
   public static PsiMethod createBuilderMethod(PsiClass recordClass) {
+    return createBuilderMethod(recordClass, BuilderSettings.of(recordClass.getProject()));
+  }
+
+  public static PsiMethod createBuilderMethod(PsiClass recordClass, BuilderSettings settings) {
     PsiElementFactory elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
     ClassName type = ClassName.bestGuess("Builder");
     return elementFactory.createMethodFromText(
-        MethodSpec.methodBuilder(BuilderSettings.settings().builderMethodName(recordClass))
+        MethodSpec.methodBuilder(settings.builderMethodName(recordClass))
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .returns(type)
             .addStatement("return new $T()", type)
@@ -456,10 +569,14 @@ public class BuilderGenerator {
   }
 
   public static PsiMethod createToBuilderMethod(PsiClass recordClass) {
+    return createToBuilderMethod(recordClass, BuilderSettings.of(recordClass.getProject()));
+  }
+
+  public static PsiMethod createToBuilderMethod(PsiClass recordClass, BuilderSettings settings) {
     PsiElementFactory elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
     ClassName type = ClassName.bestGuess("Builder");
     return elementFactory.createMethodFromText(
-        MethodSpec.methodBuilder(BuilderSettings.settings().copyMethodName())
+        MethodSpec.methodBuilder(settings.copyMethodName())
             .addModifiers(Modifier.PUBLIC)
             .returns(type)
             .addStatement("return new $T(this)", type)
@@ -500,20 +617,117 @@ public class BuilderGenerator {
     }
   }
 
-  /** Reformat code to adhere to project's code style settings */
-  public static void formatRecordCode(PsiClass recordClass, PsiElement builderClass) {
-    JavaCodeStyleManager styleManager = JavaCodeStyleManager.getInstance(recordClass.getProject());
-    PsiFile javaFile = recordClass.getContainingFile();
-    styleManager.shortenClassReferences(builderClass);
+  /**
+   * Shortens the class references of the changed elements, importing only the classes they need,
+   * and reformats their text ranges to adhere to the project's code style settings. Of the
+   * existing imports, only those in {@code importsInUse}, captured with {@link #importsInUse}
+   * before the change, that the change left unused are removed. The rest of the file is left
+   * untouched.
+   */
+  public static void formatRecordCode(
+      PsiClass recordClass, List<PsiElement> changed, Set<PsiImportStatementBase> importsInUse) {
+    long start = BuilderDiagnostics.getInstance().start();
+    try {
+      format(recordClass, changed, importsInUse);
+    } finally {
+      BuilderDiagnostics.getInstance().record(BuilderDiagnostics.FORMAT, start);
+    }
+  }
 
-    if (javaFile instanceof PsiJavaFile psiJavaFile) {
-      styleManager.removeRedundantImports(psiJavaFile);
-      styleManager.shortenClassReferences(psiJavaFile);
-      styleManager.optimizeImports(psiJavaFile);
-    } else {
-      styleManager.shortenClassReferences(javaFile);
-      styleManager.optimizeImports(javaFile);
+  private static void format(
+      PsiClass recordClass, List<PsiElement> changed, Set<PsiImportStatementBase> importsInUse) {
+    Project project = recordClass.getProject();
+    JavaCodeStyleManager styleManager = JavaCodeStyleManager.getInstance(project);
+    PsiFile file = recordClass.getContainingFile();
+    PsiImportList importList =
+        file instanceof PsiJavaFile javaFile ? javaFile.getImportList() : null;
+    Set<PsiImportStatementBase> existingImports =
+        importList == null ? Set.of() : Set.of(importList.getAllImportStatements());
+
+    List<PsiElement> shortened = new ArrayList<>();
+    for (PsiElement element : new LinkedHashSet<>(changed)) {
+      if (element != null && element.isValid()) {
+        shortened.add(styleManager.shortenClassReferences(element));
+      }
+    }
+
+    List<TextRange> ranges = new ArrayList<>();
+    if (importList != null) {
+      Set<PsiImportStatementBase> stillInUse = importsInUse(file);
+      List<PsiImportStatementBase> added = new ArrayList<>();
+      boolean removed = false;
+      for (PsiImportStatementBase statement : importList.getAllImportStatements()) {
+        if (!existingImports.contains(statement)) {
+          added.add(statement);
+        } else if (importsInUse.contains(statement) && !stillInUse.contains(statement)) {
+          statement.delete();
+          removed = true;
+        }
+      }
+      if (removed) {
+        ranges.add(importList.getTextRange());
+      } else {
+        added.forEach(it -> ranges.add(rangeWithLeadingWhitespace(it)));
+      }
+    }
+    for (PsiElement element : shortened) {
+      if (element.isValid()) {
+        ranges.add(rangeWithLeadingWhitespace(element));
+      }
+    }
+    if (!ranges.isEmpty()) {
+      CodeStyleManager.getInstance(project).reformatText(file, ranges);
+    }
+  }
+
+  /**
+   * Returns the single imports of the file whose imported name occurs in its code or comments.
+   * Names are matched in the text rather than resolved, so this is cheap enough to capture before
+   * every change, and errs on the side of keeping an import.
+   */
+  public static Set<PsiImportStatementBase> importsInUse(PsiFile file) {
+    if (!(file instanceof PsiJavaFile javaFile) || javaFile.getImportList() == null) {
+      return Set.of();
+    }
+    PsiImportList importList = javaFile.getImportList();
+    String text = file.getText();
+    TextRange importRange = importList.getTextRange();
+    Set<String> words = new HashSet<>();
+    collectWords(text, 0, importRange.getStartOffset(), words);
+    collectWords(text, importRange.getEndOffset(), text.length(), words);
+
+    Set<PsiImportStatementBase> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (PsiImportStatementBase statement : importList.getAllImportStatements()) {
+      PsiJavaCodeReferenceElement reference = statement.getImportReference();
+      if (statement.isOnDemand()
+          || reference == null
+          || words.contains(reference.getReferenceName())) {
+        inUse.add(statement);
+      }
+    }
+    return inUse;
+  }
+
+  private static void collectWords(String text, int start, int end, Set<String> words) {
+    int i = start;
+    while (i < end) {
+      if (!Character.isJavaIdentifierStart(text.charAt(i))) {
+        i++;
+        continue;
+      }
+      int wordStart = i;
+      while (i < end && Character.isJavaIdentifierPart(text.charAt(i))) {
+        i++;
+      }
+      words.add(text.substring(wordStart, i));
+    }
+  }
+
+  private static TextRange rangeWithLeadingWhitespace(PsiElement element) {
+    TextRange range = element.getTextRange();
+    if (element.getPrevSibling() instanceof PsiWhiteSpace whitespace) {
+      return new TextRange(whitespace.getTextRange().getStartOffset(), range.getEndOffset());
     }
-    CodeStyleManager.getInstance(recordClass.getProject()).reformat(javaFile);
+    return range;
   }
 }
@@ -1,23 +1,34 @@
 package ma.ju.intellij.builder.psi;
 
-import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
 import ma.ju.intellij.builder.ide.BuilderOption;
 
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
+/** An immutable snapshot of the generation options. */
 public class BuilderSettings {
   private final EnumSet<BuilderOption> options;
-  private static final ThreadLocal<BuilderSettings> settingsThreadLocal = new ThreadLocal<>();
 
   public BuilderSettings(EnumSet<BuilderOption> options) {
-    this.options = options;
+    this.options = EnumSet.copyOf(options);
   }
 
+  /** Returns the current options of the project. */
+  public static BuilderSettings of(Project project) {
+    return BuilderSettingsService.getInstance(project).settings();
+  }
+
+  public boolean isEnabled(BuilderOption option) {
+    return options.contains(option);
+  }
+
+  EnumSet<BuilderOption> options() {
+    return EnumSet.copyOf(options);
+  }
 
   public String methodPrefix() {
     if (options.contains(BuilderOption.BUILDER_METHOD_PREFIX_SET)) {
@@ -90,6 +101,10 @@ public class BuilderSettings {
     return options.contains(BuilderOption.WITH_IMMUTABLE_COLLECTIONS);
   }
 
+  public boolean nullCheckedCopies() {
+    return options.contains(BuilderOption.WITH_NULL_CHECKED_COPIES);
+  }
+
   public boolean generateJavaDoc() {
     return options.contains(BuilderOption.WITH_JAVADOC);
   }
@@ -115,39 +130,4 @@ public class BuilderSettings {
   public boolean nullHandlingRequired() {
     return validateNulls() && !options.contains(BuilderOption.NULL_HANDLING_OPTIONAL);
   }
-
-  private static BuilderSettings getInstance() {
-    EnumSet<BuilderOption> options = EnumSet.noneOf(BuilderOption.class);
-    final PropertiesComponent propertiesComponent = PropertiesComponent.getInstance();
-    for (final BuilderOption option : BuilderOption.values()) {
-      if (option.isBoolean()) {
-        final boolean currentSetting = propertiesComponent.getBoolean(option.property(), false);
-        if (currentSetting) {
-          options.add(option);
-        }
-      } else {
-        BuilderOption.findValue(propertiesComponent.getValue(option.property()))
-            .ifPresent(options::add);
-      }
-    }
-    return new BuilderSettings(options);
-  }
-
-  public static BuilderSettings settings() {
-    BuilderSettings value = settingsThreadLocal.get();
-    if (value == null) {
-      value = getInstance();
-      settingsThreadLocal.set(value);
-    }
-    return value;
-  }
-
-  public static BuilderSettings init() {
-    return init(getInstance());
-  }
-
-  public static BuilderSettings init(BuilderSettings value) {
-    settingsThreadLocal.set(value);
-    return value;
-  }
 }
@@ -0,0 +1,152 @@
+package ma.ju.intellij.builder.psi;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.util.messages.Topic;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+import ma.ju.intellij.builder.ide.BuilderOption;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Holds the generation options of a project as an immutable {@link BuilderSettings} snapshot.
+ * Every change replaces the snapshot, increments the modification count and is published on
+ * {@link #TOPIC}, so caches derived from the options can depend on this service instead of
+ * rereading them. Options saved by earlier versions of the plugin in the application properties
+ * are migrated the first time the service is loaded for a project. The saved state records the
+ * migration, so it isn't repeated when every option is disabled.
+ */
+@Service(Service.Level.PROJECT)
+@State(name = "RecordBuilderSettings", storages = @Storage("recordBuilder.xml"))
+public final class BuilderSettingsService
+    implements PersistentStateComponent<BuilderSettingsService.OptionsState>, ModificationTracker {
+  public static final Topic<Listener> TOPIC =
+      Topic.create("Record Builder settings", Listener.class);
+
+  private final Project project;
+  private final SimpleModificationTracker tracker = new SimpleModificationTracker();
+  private volatile BuilderSettings settings =
+      new BuilderSettings(EnumSet.noneOf(BuilderOption.class));
+
+  public interface Listener {
+    void settingsChanged(@NotNull BuilderSettings settings);
+  }
+
+  /** The persisted form of the options: the names of the enabled {@link BuilderOption}s. */
+  public static final class OptionsState {
+    public List<String> options = new ArrayList<>();
+
+    public boolean migrated;
+  }
+
+  public BuilderSettingsService(Project project) {
+    this.project = project;
+  }
+
+  public static BuilderSettingsService getInstance(Project project) {
+    return project.getService(BuilderSettingsService.class);
+  }
+
+  public @NotNull BuilderSettings settings() {
+    return settings;
+  }
+
+  /** Enables or disables a check box option. */
+  public void setEnabled(BuilderOption option, boolean enabled) {
+    update(
+        options -> {
+          if (enabled) {
+            options.add(option);
+          } else {
+            options.remove(option);
+          }
+        });
+  }
+
+  /** Selects one of the mutually exclusive values of a drop down option. */
+  public void select(Collection<BuilderOption> values, BuilderOption selected) {
+    update(
+        options -> {
+          options.removeAll(values);
+          options.add(selected);
+        });
+  }
+
+  @Override
+  public long getModificationCount() {
+    return tracker.getModificationCount();
+  }
+
+  @Override
+  public @NotNull OptionsState getState() {
+    OptionsState state = new OptionsState();
+    state.migrated = true;
+    for (BuilderOption option : settings.options()) {
+      state.options.add(option.name());
+    }
+    return state;
+  }
+
+  @Override
+  public void loadState(@NotNull OptionsState state) {
+    EnumSet<BuilderOption> options = EnumSet.noneOf(BuilderOption.class);
+    for (String name : state.options) {
+      try {
+        options.add(BuilderOption.valueOf(name));
+      } catch (IllegalArgumentException e) {
+        // an option removed since the state was saved
+      }
+    }
+    // the state is reloaded when the file changes on disk, e.g. after a VCS update
+    replace(options);
+  }
+
+  @Override
+  public void noStateLoaded() {
+    settings = new BuilderSettings(legacyOptions());
+    tracker.incModificationCount();
+  }
+
+  private synchronized void update(Consumer<EnumSet<BuilderOption>> change) {
+    EnumSet<BuilderOption> options = settings.options();
+    change.accept(options);
+    replace(options);
+  }
+
+  /** Replaces the options and publishes the new settings, unless the options are unchanged. */
+  private synchronized void replace(EnumSet<BuilderOption> options) {
+    if (options.equals(settings.options())) {
+      return;
+    }
+    settings = new BuilderSettings(options);
+    tracker.incModificationCount();
+    if (!project.isDisposed()) {
+      project.getMessageBus().syncPublisher(TOPIC).settingsChanged(settings);
+    }
+  }
+
+  /** Reads the options the way earlier versions stored them, in the application properties. */
+  private static EnumSet<BuilderOption> legacyOptions() {
+    EnumSet<BuilderOption> options = EnumSet.noneOf(BuilderOption.class);
+    PropertiesComponent properties = PropertiesComponent.getInstance();
+    for (BuilderOption option : BuilderOption.values()) {
+      if (option.isBoolean()) {
+        if (properties.getBoolean(option.property(), false)) {
+          options.add(option);
+        }
+      } else {
+        BuilderOption.findValue(properties.getValue(option.property())).ifPresent(options::add);
+      }
+    }
+    return options;
+  }
+}
@@ -23,16 +23,26 @@ import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.lang.model.element.Modifier;
 
 public class BuilderTypeGenerator {
   private final PsiClass recordClass;
   private final PsiClass builderClass;
+  /**
+   * Non-physical copy of the existing builder that receives every edit, so the physical class is
+   * only changed once, when the copy replaces it.
+   */
+  private final PsiClass workingCopy;
+  /** Maps the members of the existing builder to their counterparts in the working copy. */
+  private final Map<PsiElement, PsiElement> copies;
   private final Field[] components;
   private final PsiElementFactory elementFactory;
   private final BuilderSettings settings;
@@ -41,11 +51,24 @@ public class BuilderTypeGenerator {
 
   private final TypeSpec.Builder builder;
 
+  /** Members emitted into the existing builder, parsed in a single pass by {@link #parse}. */
+  private final List<FieldSpec> emittedFields = new ArrayList<>();
+  private final List<MethodSpec> emittedConstructors = new ArrayList<>();
+  private final List<MethodSpec> emittedMethods = new ArrayList<>();
+  /** Edits of the working copy, applied in order once the emitted members have been parsed. */
+  private final List<Runnable> edits = new ArrayList<>();
+
+  private PsiField[] parsedFields;
+  private PsiMethod[] parsedConstructors;
+  private PsiMethod[] parsedMethods;
+
   private BuilderTypeGenerator(
       PsiClass recordClass, Field[] components, PsiClass builderClass, BuilderSettings settings) {
     this.recordClass = recordClass;
     this.components = components;
     this.builderClass = builderClass;
+    this.workingCopy = builderClass == null ? null : (PsiClass) builderClass.copy();
+    this.copies = builderClass == null ? Map.of() : counterparts(builderClass, workingCopy);
     this.elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
     this.settings = settings;
     this.descriptor = BuilderDescriptor.from(builderClass, recordClass);
@@ -56,11 +79,11 @@ public class BuilderTypeGenerator {
 
     if (builderClass != null) {
       if (descriptor.methods().containsKey("build")) {
-        descriptor.methods().get("build").delete();
+        deleteCopy(descriptor.methods().get("build"));
       }
       for (PsiMethod method : builderClass.getAllMethods()) {
         if ("Builder".equals(method.getName())) {
-          method.delete();
+          deleteCopy(method);
         }
       }
     }
@@ -71,7 +94,22 @@ public class BuilderTypeGenerator {
     return new BuilderTypeGenerator(recordClass, components, builderClass, settings).build();
   }
 
+  /**
+   * Returns the builder class without modifying the physical PSI, so it can be computed in a read
+   * action. It is either a new class, or an edited copy of the existing builder that is meant to
+   * replace it.
+   */
+  public static PsiClass prepare(
+      PsiClass recordClass, Field[] components, PsiClass builderClass, BuilderSettings settings) {
+    return new BuilderTypeGenerator(recordClass, components, builderClass, settings).emit();
+  }
+
   public PsiClass build() {
+    PsiClass prepared = emit();
+    return builderClass != null ? (PsiClass) builderClass.replace(prepared) : prepared;
+  }
+
+  private PsiClass emit() {
     writeFields();
     writeConstructors();
     writeBuilderMethod();
@@ -79,7 +117,9 @@ public class BuilderTypeGenerator {
     writeBuildMethod();
 
     if (builderClass != null) {
-      return builderClass;
+      parse();
+      edits.forEach(Runnable::run);
+      return workingCopy;
     }
     JavaFile.Builder javaFile = JavaFile.builder("", builder.build());
     PsiElementFactory elementFactory = JavaPsiFacade.getElementFactory(recordClass.getProject());
@@ -88,6 +128,67 @@ public class BuilderTypeGenerator {
     return dummyClass.getInnerClasses()[0];
   }
 
+  /** Returns the direct children of the original class mapped to those of its copy. */
+  private static Map<PsiElement, PsiElement> counterparts(PsiClass original, PsiClass copy) {
+    Map<PsiElement, PsiElement> counterparts = new HashMap<>();
+    PsiElement copyChild = copy.getFirstChild();
+    for (PsiElement child = original.getFirstChild();
+        child != null && copyChild != null;
+        child = child.getNextSibling(), copyChild = copyChild.getNextSibling()) {
+      counterparts.put(child, copyChild);
+    }
+    return counterparts;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends PsiElement> T copyOf(T element) {
+    return (T) copies.get(element);
+  }
+
+  private void deleteCopy(PsiElement element) {
+    PsiElement copy = copies.get(element);
+    if (copy != null && copy.isValid()) {
+      copy.delete();
+    }
+  }
+
+  private Supplier<PsiField> emit(FieldSpec field) {
+    int index = emittedFields.size();
+    emittedFields.add(field);
+    return () -> parsedFields[index];
+  }
+
+  private Supplier<PsiMethod> emit(MethodSpec method) {
+    List<MethodSpec> emitted = method.isConstructor() ? emittedConstructors : emittedMethods;
+    int index = emitted.size();
+    emitted.add(method);
+    return method.isConstructor() ? () -> parsedConstructors[index] : () -> parsedMethods[index];
+  }
+
+  /**
+   * Renders every emitted member as one class and parses it at once. The members keep their fully
+   * qualified names, which are shortened when the record is formatted.
+   */
+  private void parse() {
+    if (emittedFields.isEmpty() && emittedConstructors.isEmpty() && emittedMethods.isEmpty()) {
+      return;
+    }
+    TypeSpec type =
+        TypeSpec.classBuilder("Builder")
+            .addFields(emittedFields)
+            .addMethods(emittedConstructors)
+            .addMethods(emittedMethods)
+            .build();
+    PsiClass parsed = elementFactory.createClassFromText(type.toString(), builderClass);
+    parsed = parsed.getInnerClasses()[0];
+    parsedFields = parsed.getFields();
+    parsedConstructors = parsed.getConstructors();
+    parsedMethods =
+        Arrays.stream(parsed.getMethods())
+            .filter(it -> !it.isConstructor())
+            .toArray(PsiMethod[]::new);
+  }
+
   private void writeFields() {
     for (Field component : components) {
       FieldSpec.Builder fieldBuilder =
@@ -110,27 +211,28 @@ public class BuilderTypeGenerator {
           if (existing.source() instanceof PsiVariable var
               && field.initializer != null
               && !var.hasInitializer()) {
-            existing.source().delete();
+            PsiElement source = existing.source();
+            edits.add(() -> deleteCopy(source));
           } else {
             continue;
           }
         }
 
-        builderClass.addBefore(
-            elementFactory.createFieldFromText(field.toString(), builderClass), firstPos());
+        Supplier<PsiField> parsed = emit(field);
+        edits.add(() -> workingCopy.addBefore(parsed.get(), firstPos()));
       }
     }
   }
 
   private PsiElement firstPos() {
-    PsiField[] fields = builderClass.getFields();
+    PsiField[] fields = workingCopy.getFields();
     if (fields.length > 0) {
       return fields[fields.length - 1];
     }
-    for (PsiMethod method : builderClass.getMethods()) {
+    for (PsiMethod method : workingCopy.getMethods()) {
       return method;
     }
-    return builderClass.getLastChild();
+    return workingCopy.getLastChild();
   }
 
   private void writeConstructors() {
@@ -138,13 +240,11 @@ public class BuilderTypeGenerator {
     Modifier modifier = settings.generateBuilderMethod() ? Modifier.PRIVATE : Modifier.PUBLIC;
     MethodSpec method = MethodSpec.constructorBuilder().addModifiers(modifier).build();
     builder.addMethod(method);
-    PsiElement el = null;
-    if (builderClass != null) {
-      el =
-          builderClass.addAfter(
-              elementFactory.createMethodFromText(method.toString(), builderClass), firstPos());
-    }
+    Supplier<PsiMethod> parsed = builderClass != null ? emit(method) : null;
     if (!settings.generateCopyMethod()) {
+      if (parsed != null) {
+        edits.add(() -> workingCopy.addAfter(parsed.get(), firstPos()));
+      }
       return;
     }
 
@@ -154,9 +254,13 @@ public class BuilderTypeGenerator {
       constructor.addStatement("this.$L = record.$L", component.name(), component.name());
     }
     builder.addMethod(constructor.build());
-    if (builderClass != null) {
-      builderClass.addAfter(
-          elementFactory.createMethodFromText(constructor.build().toString(), builderClass), el);
+    if (parsed != null) {
+      Supplier<PsiMethod> parsedCopyConstructor = emit(constructor.build());
+      edits.add(
+          () -> {
+            PsiElement el = workingCopy.addAfter(parsed.get(), firstPos());
+            workingCopy.addAfter(parsedCopyConstructor.get(), el);
+          });
     }
   }
 
@@ -188,35 +292,13 @@ public class BuilderTypeGenerator {
               .returns(ClassName.bestGuess("Builder"))
               .addParameter(param.build());
 
-      CodeBlock.Builder body = CodeBlock.builder();
-
-      if (isString(component.typeName()) && isNotEmpty(component)) {
-        body.addStatement(
-            "this.$L = ($L == null || $L.isBlank()) ? null : $L",
-            component.name(),
-            component.name(),
-            component.name(),
-            component.name());
-      } else if (isCollection(component.typeName()) && isNotNull(component)) {
-        TypeName typeName = component.rawType();
-        body.addStatement(
-            "this.$L = ($L == null) ? $T.of() : $L",
-            component.name(),
-            component.name(),
-            typeName,
-            component.name());
-      } else if (!component.typeName().isPrimitive() && isNotNull(component)) {
-        body.addStatement(
-            "this.$L = $T.requireNonNull($L, $S)",
-            component.name(),
-            Objects.class,
-            component.name(),
-            "Null " + component.name());
-      } else {
-        body.addStatement("this.$L = $L", component.name(), component.name());
-      }
-
-      body.addStatement("return this");
+      TypeName type = component.typeName();
+      CodeBlock body =
+          setterBody(
+              component.name(),
+              type,
+              isString(type) && isNotEmpty(component),
+              !type.isPrimitive() && isNotNull(component));
 
       if (settings.generateJavaDoc()) {
         method.addJavadoc(
@@ -231,7 +313,7 @@ public class BuilderTypeGenerator {
       }
 
       if (!exists) {
-        method.addCode(body.build());
+        method.addCode(body);
       }
       builder.addMethod(method.build());
       if (builderClass != null) {
@@ -244,18 +326,24 @@ public class BuilderTypeGenerator {
               cb.add("$L\n", statement.getText());
             }
             method.addCode(cb.build());
-            builderClass.addAfter(
-                elementFactory.createMethodFromText(method.build().toString(), builderClass),
-                existingMethod);
-            existingMethod.delete();
+            Supplier<PsiMethod> parsed = emit(method.build());
+            edits.add(
+                () -> {
+                  PsiMethod copy = copyOf(existingMethod);
+                  if (copy == null) {
+                    workingCopy.addBefore(parsed.get(), workingCopy.getLastChild());
+                  } else {
+                    workingCopy.addAfter(parsed.get(), copy);
+                    copy.delete();
+                  }
+                });
             continue;
           }
-          method.addCode(body.build());
-          existingMethod.delete();
+          method.addCode(body);
+          edits.add(() -> deleteCopy(existingMethod));
         }
-        builderClass.addBefore(
-            elementFactory.createMethodFromText(method.build().toString(), builderClass),
-            builderClass.getLastChild());
+        Supplier<PsiMethod> parsed = emit(method.build());
+        edits.add(() -> workingCopy.addBefore(parsed.get(), workingCopy.getLastChild()));
       }
     }
   }
@@ -273,8 +361,8 @@ public class BuilderTypeGenerator {
             .build();
     builder.addMethod(method);
     if (builderClass != null) {
-      builderClass.addAfter(
-          elementFactory.createMethodFromText(method.toString(), builderClass), firstPos());
+      Supplier<PsiMethod> parsed = emit(method);
+      edits.add(() -> workingCopy.addAfter(parsed.get(), firstPos()));
     }
   }
 
@@ -391,11 +479,14 @@ public class BuilderTypeGenerator {
     }
     builder.addMethod(method.build());
     if (builderClass != null) {
-      builderClass.addBefore(
-          elementFactory.createMethodFromText(method.build().toString(), builderClass),
-          descriptor.methods().containsKey("validate")
-              ? descriptor.methods().get("validate")
-              : builderClass.getLastChild());
+      Supplier<PsiMethod> parsed = emit(method.build());
+      PsiMethod validate = descriptor.methods().get("validate");
+      edits.add(
+          () -> {
+            PsiElement anchor = validate != null ? copyOf(validate) : null;
+            workingCopy.addBefore(
+                parsed.get(), anchor != null ? anchor : workingCopy.getLastChild());
+          });
     }
   }
 
@@ -442,6 +533,29 @@ public class BuilderTypeGenerator {
     return false;
   }
 
+  /**
+   * Returns the body of the setter of a component: the assignment of the parameter, turning blank
+   * strings into null, null collections into empty ones or rejecting nulls as requested, followed
+   * by {@code return this}.
+   */
+  public static CodeBlock setterBody(
+      String name, TypeName type, boolean blankAsNull, boolean notNull) {
+    CodeBlock.Builder body = CodeBlock.builder();
+    if (isString(type) && blankAsNull) {
+      body.addStatement(
+          "this.$L = ($L == null || $L.isBlank()) ? null : $L", name, name, name, name);
+    } else if (isCollection(type) && notNull) {
+      TypeName rawType = type instanceof ParameterizedTypeName pt ? pt.rawType : type;
+      body.addStatement("this.$L = ($L == null) ? $T.of() : $L", name, name, rawType, name);
+    } else if (!type.isPrimitive() && notNull) {
+      body.addStatement(
+          "this.$L = $T.requireNonNull($L, $S)", name, Objects.class, name, "Null " + name);
+    } else {
+      body.addStatement("this.$L = $L", name, name);
+    }
+    return body.addStatement("return this").build();
+  }
+
   public static boolean isString(TypeName type) {
     String value = type.toString();
     return "java.lang.String".equals(value) || "String".equals(value);
@@ -1,29 +1,57 @@
 package ma.ju.intellij.builder.psi;
 
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiAnnotation;
 import com.intellij.psi.PsiArrayType;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiModifierList;
 import com.intellij.psi.PsiModifierListOwner;
 import com.intellij.psi.PsiPrimitiveType;
 import com.intellij.psi.PsiRecordComponent;
 import com.intellij.psi.PsiType;
 import com.intellij.psi.PsiVariable;
 import com.intellij.psi.impl.source.PsiClassReferenceType;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTypesUtil;
+import com.intellij.util.containers.CollectionFactory;
+import com.intellij.util.containers.Interner;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 
-import java.util.Arrays;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.StringJoiner;
 
+/**
+ * A field of a record, class or builder. Its identity is the signature, computed once from stub
+ * data when the field is created.
+ */
 public record Field(
-    PsiModifierListOwner source, PsiClass containingClass, PsiType type, TypeName typeName) {
+    PsiModifierListOwner source,
+    PsiClass containingClass,
+    PsiType type,
+    TypeName typeName,
+    String signature) {
+
+  public Field(
+      PsiModifierListOwner source, PsiClass containingClass, PsiType type, TypeName typeName) {
+    this(source, containingClass, type, typeName, signature(source, containingClass, typeName));
+  }
+
+  private static final Key<CachedValue<Map<PsiType, TypeName>>> RESOLVED_TYPES_KEY =
+      Key.create("ma.ju.intellij.builder.psi.resolvedTypes");
+  private static final Interner<TypeName> TYPE_NAMES = Interner.createWeakInterner();
+  private static final TypeName OBJECT = TypeName.get(Object.class);
 
   private static final Map<String, TypeName> PRIMITIVES =
       Map.of(
@@ -44,20 +72,47 @@ public record Field(
     return typeName;
   }
 
-  public String signature() {
-    StringBuilder sb = new StringBuilder();
-    if (containingClass.getQualifiedName() != null) {
-      sb.append(containingClass.getQualifiedName());
-    } else if (containingClass.getName() != null) {
-      sb.append(containingClass.getName());
+  private static String signature(
+      PsiModifierListOwner source, PsiClass containingClass, TypeName typeName) {
+    String className =
+        containingClass.getQualifiedName() != null
+            ? containingClass.getQualifiedName()
+            : containingClass.getName();
+    return signature(className, modifiersOf(source), typeName, nameOf(source));
+  }
+
+  /**
+   * Returns the annotations and explicit modifiers of a variable in a canonical order. Both are
+   * read through the modifier list's stub where there is one, so the file's AST isn't loaded.
+   */
+  private static String modifiersOf(PsiModifierListOwner source) {
+    PsiModifierList modifierList = source instanceof PsiVariable ? source.getModifierList() : null;
+    if (modifierList == null) {
+      return "";
     }
-    sb.append(" {");
-    if (source instanceof PsiVariable variable) {
-      if (variable.getModifierList() != null) {
-        sb.append(variable.getModifierList().getText());
+    StringJoiner modifiers = new StringJoiner(" ");
+    for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+      modifiers.add("@" + annotation.getQualifiedName());
+    }
+    for (String modifier : PsiModifier.MODIFIERS) {
+      if (modifierList.hasExplicitModifier(modifier)) {
+        modifiers.add(modifier);
       }
     }
-    return sb.append(" ").append(typeName).append(" ").append(name()).append("}").toString();
+    return modifiers.toString();
+  }
+
+  /** Returns the signature identifying a field, independent of the PSI it was read from. */
+  public static String signature(
+      String className, String modifiers, TypeName typeName, String name) {
+    return (className == null ? "" : className)
+        + " {"
+        + modifiers
+        + " "
+        + typeName
+        + " "
+        + name
+        + "}";
   }
 
   @Override
@@ -65,20 +120,24 @@ public record Field(
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Field field = (Field) o;
-    return Objects.equals(signature(), field.signature());
+    return signature.equals(field.signature);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(signature());
+    return signature.hashCode();
   }
 
   @Override
   public String toString() {
-    return signature();
+    return signature;
   }
 
   public String name() {
+    return nameOf(source);
+  }
+
+  private static String nameOf(PsiModifierListOwner source) {
     if (source instanceof PsiVariable variable) {
       return variable.getName();
     } else if (source instanceof PsiMethod method) {
@@ -87,36 +146,95 @@ public record Field(
     throw new IllegalStateException(source.getText());
   }
 
+  /**
+   * Returns the JavaPoet type name of the given type. Class types are cached per project until the
+   * java code changes, and equal type names resolve to the same interned instance.
+   */
   public static TypeName resolveType(PsiType type) {
-    try {
-      if (type instanceof PsiClassReferenceType classReferenceType) {
-        if (classReferenceType.getParameterCount() > 0) {
-          return ParameterizedTypeName.get(
-              ClassName.bestGuess(
-                  Optional.ofNullable(PsiTypesUtil.getPsiClass(type))
-                      .map(PsiClass::getQualifiedName)
-                      .orElse(classReferenceType.getClassName())),
-              Arrays.stream(classReferenceType.getParameters())
-                  .map(Field::resolveType)
-                  .toArray(TypeName[]::new));
-        }
-        return ClassName.bestGuess(
-            Optional.ofNullable(PsiTypesUtil.getPsiClass(type))
-                .map(PsiClass::getQualifiedName)
-                .orElse(classReferenceType.getClassName()));
-      } else if (type instanceof PsiPrimitiveType primitiveType) {
-        return PRIMITIVES.get(primitiveType.getName());
-      } else if (type instanceof PsiArrayType arrayType) {
-        return ArrayTypeName.of(resolveType(arrayType.getComponentType()));
+    if (!(type instanceof PsiClassReferenceType classReferenceType)) {
+      return computeType(type);
+    }
+    Map<PsiType, TypeName> cache = resolvedTypes(classReferenceType.getReference().getProject());
+    TypeName typeName = cache.get(type);
+    if (typeName == null) {
+      // not computeIfAbsent: resolving the type parameters updates the same map
+      typeName = computeType(type);
+      cache.put(type, typeName);
+    }
+    return typeName;
+  }
+
+  private static Map<PsiType, TypeName> resolvedTypes(Project project) {
+    return CachedValuesManager.getManager(project)
+        .getCachedValue(
+            project,
+            RESOLVED_TYPES_KEY,
+            () ->
+                CachedValueProvider.Result.create(
+                    CollectionFactory.createConcurrentWeakIdentityMap(),
+                    PsiModificationTracker.getInstance(project).forLanguage(JavaLanguage.INSTANCE)),
+            false);
+  }
+
+  private static TypeName computeType(PsiType type) {
+    if (type instanceof PsiPrimitiveType primitiveType) {
+      return PRIMITIVES.getOrDefault(primitiveType.getName(), OBJECT);
+    } else if (type instanceof PsiArrayType arrayType) {
+      return TYPE_NAMES.intern(ArrayTypeName.of(resolveType(arrayType.getComponentType())));
+    } else if (type == null) {
+      return OBJECT;
+    }
+
+    PsiClass psiClass = PsiTypesUtil.getPsiClass(type);
+    String name = psiClass != null ? psiClass.getQualifiedName() : null;
+    if (name == null) {
+      name =
+          type instanceof PsiClassReferenceType classReferenceType
+              ? classReferenceType.getClassName()
+              : type.getCanonicalText();
+    }
+    // If we can't determine the type, we will assume everything is an object
+    if (!isClassName(name)) {
+      return OBJECT;
+    }
+    ClassName className = (ClassName) TYPE_NAMES.intern(ClassName.bestGuess(name));
+    if (!(type instanceof PsiClassReferenceType classReferenceType)
+        || classReferenceType.getParameterCount() == 0) {
+      return className;
+    }
+
+    PsiType[] parameters = classReferenceType.getParameters();
+    TypeName[] typeArguments = new TypeName[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      typeArguments[i] = resolveType(parameters[i]);
+      if (typeArguments[i].isPrimitive() || typeArguments[i] == TypeName.VOID) {
+        return OBJECT;
+      }
+    }
+    return TYPE_NAMES.intern(ParameterizedTypeName.get(className, typeArguments));
+  }
+
+  /**
+   * Returns whether {@link ClassName#bestGuess} accepts the name: optional lower case package
+   * segments followed by at least one upper case class segment.
+   */
+  static boolean isClassName(String name) {
+    String[] segments = name.split("\\.", -1);
+    int i = 0;
+    while (i < segments.length
+        && !segments[i].isEmpty()
+        && Character.isLowerCase(segments[i].codePointAt(0))) {
+      i++;
+    }
+    if (i == segments.length) {
+      return false;
+    }
+    for (; i < segments.length; i++) {
+      if (segments[i].isEmpty() || !Character.isUpperCase(segments[i].codePointAt(0))) {
+        return false;
       }
-      return ClassName.bestGuess(
-          Optional.ofNullable(PsiTypesUtil.getPsiClass(type))
-              .map(PsiClass::getQualifiedName)
-              .orElse(type.getCanonicalText()));
-    } catch (Exception e) {
-      // If we can't determine the type, we will assume everything is an object
-      return TypeName.get(Object.class);
     }
+    return true;
   }
 
   public static Field of(PsiRecordComponent record) {
@@ -0,0 +1,24 @@
+package ma.ju.intellij.builder.psi;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The members computed by {@link BuilderGenerator#plan} for a record. None of them is part of the
+ * physical PSI until {@link BuilderGenerator#apply} writes them to the record.
+ *
+ * @param existingBuilder the builder replaced by {@code builderClass}, if any
+ * @param builderClass the builder to write, or {@code null} if the record implementing an
+ *     interface has not been declared yet
+ */
+public record GenerationPlan(
+    PsiClass recordClass,
+    Field[] fields,
+    BuilderSettings settings,
+    @Nullable PsiClass existingBuilder,
+    @Nullable PsiClass builderClass,
+    @Nullable PsiMethod toStringMethod,
+    @Nullable PsiMethod builderMethod,
+    @Nullable PsiMethod toBuilderMethod,
+    @Nullable PsiMethod constructor) {}
@@ -0,0 +1,106 @@
+package ma.ju.intellij.builder.diagnostics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+import junit.framework.TestCase;
+import ma.ju.intellij.builder.diagnostics.BuilderDiagnostics.Snapshot;
+
+public class BuilderDiagnosticsTest extends TestCase {
+  private static final String OPERATION = BuilderDiagnostics.SUMMARY;
+
+  private final BuilderDiagnostics diagnostics = new BuilderDiagnostics();
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    diagnostics.setEnabled(true);
+  }
+
+  public void testPercentiles() {
+    for (int millis = 100; millis > 0; millis--) {
+      recordMillis(millis);
+    }
+
+    Snapshot snapshot = diagnostics.snapshot().get(0);
+    assertThat(snapshot.calls()).isEqualTo(100);
+    assertThat(snapshot.totalMillis()).isCloseTo(5050, within(50.0));
+    assertThat(snapshot.p50Millis()).isCloseTo(50, within(0.5));
+    assertThat(snapshot.p90Millis()).isCloseTo(90, within(0.5));
+    assertThat(snapshot.p99Millis()).isCloseTo(99, within(0.5));
+  }
+
+  public void testPercentilesOfLatestSamples() {
+    for (int i = 0; i < 2000; i++) {
+      recordMillis(i < 1000 ? 100 : 1);
+    }
+
+    Snapshot snapshot = diagnostics.snapshot().get(0);
+    assertThat(snapshot.calls()).isEqualTo(2000);
+    // 1000 of the last 1024 samples are fast
+    assertThat(snapshot.p50Millis()).isCloseTo(1, within(0.5));
+    assertThat(snapshot.p99Millis()).isCloseTo(100, within(0.5));
+  }
+
+  public void testCacheHitRate() {
+    for (int i = 0; i < 4; i++) {
+      diagnostics.cacheAccess(OPERATION);
+    }
+    diagnostics.cacheMiss(OPERATION);
+    diagnostics.cacheAccess(BuilderDiagnostics.DESCRIPTOR);
+    diagnostics.cacheMiss(BuilderDiagnostics.DESCRIPTOR);
+    diagnostics.record(BuilderDiagnostics.INSPECTION_VISIT, diagnostics.start());
+
+    // snapshots are sorted by operation
+    assertThat(diagnostics.snapshot())
+        .extracting(Snapshot::operation, Snapshot::cacheHitRate)
+        .containsExactly(
+            tuple(BuilderDiagnostics.DESCRIPTOR, 0.0),
+            tuple(OPERATION, 0.75),
+            tuple(BuilderDiagnostics.INSPECTION_VISIT, -1.0));
+  }
+
+  public void testToJson() {
+    recordMillis(2);
+    diagnostics.visited(OPERATION, 42);
+    diagnostics.cacheAccess(OPERATION);
+
+    assertThat(diagnostics.toJson())
+        .startsWith("{\n  \"operations\": [\n    {\"operation\": \"inspection.summaryOf\"")
+        .contains("\"calls\": 1, \"totalMillis\": 2.")
+        .contains("\"nodes\": 42, \"cacheAccesses\": 1, \"cacheMisses\": 0}")
+        .endsWith("\n  ]\n}\n");
+  }
+
+  public void testNothingRecordedWhenDisabled() {
+    diagnostics.setEnabled(false);
+    recordMillis(1);
+    diagnostics.cacheAccess(OPERATION);
+    diagnostics.visited(OPERATION, 42);
+
+    assertThat(diagnostics.start()).isZero();
+    assertThat(diagnostics.snapshot()).isEmpty();
+  }
+
+  public void testStartedWhileDisabledNotRecorded() {
+    diagnostics.setEnabled(false);
+    long start = diagnostics.start();
+    diagnostics.setEnabled(true);
+    diagnostics.record(OPERATION, start);
+
+    assertThat(diagnostics.snapshot()).isEmpty();
+  }
+
+  public void testReset() {
+    recordMillis(1);
+    diagnostics.reset();
+
+    assertThat(diagnostics.snapshot()).isEmpty();
+    assertThat(diagnostics.toJson()).isEqualTo("{\n  \"operations\": [\n  ]\n}\n");
+  }
+
+  private void recordMillis(int millis) {
+    diagnostics.record(OPERATION, System.nanoTime() - millis * 1_000_000L);
+  }
+}
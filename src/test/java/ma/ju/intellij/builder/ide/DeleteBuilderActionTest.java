@@ -1,8 +1,14 @@
 package ma.ju.intellij.builder.ide;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
 import java.util.EnumSet;
 import java.util.List;
 
+import ma.ju.intellij.builder.psi.BuilderDescriptor;
 import ma.ju.intellij.builder.psi.BuilderSettings;
 import ma.ju.intellij.builder.BuilderTestCase;
 import ma.ju.intellij.builder.psi.Field;
@@ -34,4 +40,54 @@ public class DeleteBuilderActionTest extends BuilderTestCase {
         new BuilderSettings(opts),
         psiClass -> List.of(Field.of(psiClass.getRecordComponents()[0])));
   }
+
+  public void testValidOnlyForClassesWithBuilder() {
+    myFixture.configureByText(
+        "Person.java",
+        """
+        public record Person(String name) {
+          public static final class Builder {
+            private String name;
+
+            public Person build() {
+              return new Person(name);
+            }
+          }
+        }
+
+        class Unrelated<caret> {}
+        """);
+    DeleteBuilderHandler handler = new DeleteBuilderHandler();
+    assertThat(handler.isValidFor(myFixture.getEditor(), myFixture.getFile())).isFalse();
+
+    int recordOffset = myFixture.getFile().getText().indexOf("(String");
+    myFixture.getEditor().getCaretModel().moveToOffset(recordOffset);
+    assertThat(handler.isValidFor(myFixture.getEditor(), myFixture.getFile())).isTrue();
+  }
+
+  public void testGeneratedSetterMatched() {
+    assertThat(BuilderDescriptor.builderMethodSame(setter("this.name = name;"))).isTrue();
+  }
+
+  public void testNullCheckedSetterMatched() {
+    PsiMethod setter = setter("this.name = java.util.Objects.requireNonNull(name, \"Null name\");");
+    assertThat(BuilderDescriptor.builderMethodSame(setter)).isTrue();
+  }
+
+  public void testCommentedSetterKept() {
+    PsiMethod setter = setter("// trimmed by hand\nthis.name = name;");
+    assertThat(BuilderDescriptor.builderMethodSame(setter)).isFalse();
+  }
+
+  private PsiMethod setter(String assignment) {
+    PsiClass builderClass =
+        JavaPsiFacade.getElementFactory(getProject())
+            .createClassFromText(
+                "private String name;\n"
+                    + "public Builder setName(String name) {\n"
+                    + assignment
+                    + "\nreturn this;\n}",
+                null);
+    return builderClass.findMethodsByName("setName", false)[0];
+  }
 }
@@ -3,11 +3,17 @@ package ma.ju.intellij.builder.ide;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.testFramework.PlatformTestUtil;
 import ma.ju.intellij.builder.psi.BuilderGenerator;
 import ma.ju.intellij.builder.psi.BuilderSettings;
+import ma.ju.intellij.builder.psi.Field;
+import ma.ju.intellij.builder.psi.GenerationPlan;
 import ma.ju.intellij.builder.BuilderTestCase;
+import org.jetbrains.concurrency.CancellablePromise;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 
 public class RecordBuilderActionTest extends BuilderTestCase {
   private static final EnumSet<BuilderOption> options =
@@ -54,6 +60,59 @@ public class RecordBuilderActionTest extends BuilderTestCase {
     verifyContents("InterfaceRecord", new BuilderSettings(opts));
   }
 
+  public void testNullCheckedCopies() {
+    EnumSet<BuilderOption> opts = EnumSet.copyOf(options);
+    opts.remove(BuilderOption.NULL_HANDLING_REQUIRED);
+    opts.add(BuilderOption.NULL_HANDLING_OPTIONAL);
+    opts.add(BuilderOption.WITH_IMMUTABLE_COLLECTIONS);
+    opts.add(BuilderOption.WITH_NULL_CHECKED_COPIES);
+    verifyContents("NullCheckedCopies", new BuilderSettings(opts));
+  }
+
+  public void testPlanThenApply() {
+    var inputJava = getTestPsiJavaFile("CustomRecord.java");
+    var outputText = getTestPsiJavaFile("CustomRecord.after.java");
+    var recordClass = inputJava.getClasses()[0];
+    String before = inputJava.getText();
+
+    EnumSet<BuilderOption> opts = EnumSet.copyOf(options);
+    opts.add(BuilderOption.WITH_JAVADOC);
+    GenerationPlan plan =
+        BuilderGenerator.plan(
+            recordClass,
+            RecordMemberChooser.mapRecordComponentNames(recordClass),
+            new BuilderSettings(opts));
+    assertThat(inputJava.getText()).isEqualTo(before);
+
+    WriteCommandAction.runWriteCommandAction(
+        inputJava.getProject(), () -> BuilderGenerator.apply(plan));
+    assertThat(inputJava.getText()).isEqualToIgnoringWhitespace(outputText.getText());
+  }
+
+  public void testPlanExpiresWhenClassInvalidated() {
+    var inputJava = getTestPsiJavaFile("CustomRecord.java");
+    var recordClass = inputJava.getClasses()[0];
+    List<Field> fields = RecordMemberChooser.mapRecordComponentNames(recordClass);
+
+    // the background read action can't start while the write lock is held
+    List<CancellablePromise<GenerationPlan>> promise = new ArrayList<>();
+    WriteCommandAction.runWriteCommandAction(
+        getProject(),
+        () -> {
+          promise.add(
+              RecordBuilderHandler.generate(
+                  getProject(), recordClass, fields, new BuilderSettings(options)));
+          recordClass.delete();
+        });
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!promise.get(0).isDone() && System.currentTimeMillis() < deadline) {
+      PlatformTestUtil.dispatchAllEventsInIdeEventQueue();
+    }
+
+    assertThat(promise.get(0).isCancelled()).isTrue();
+    assertThat(inputJava.getClasses()).isEmpty();
+  }
+
   public void testRegenerateRecord() {
     EnumSet<BuilderOption> opts = EnumSet.copyOf(options);
     opts.add(BuilderOption.WITH_JAVADOC);
@@ -0,0 +1,90 @@
+package ma.ju.intellij.builder.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import java.util.List;
+
+public class BuilderIndexTest extends LightJavaCodeInsightFixtureTestCase {
+
+  public void testIndexesSetters() {
+    PsiClass personClass =
+        myFixture.addClass(
+            """
+            package people;
+
+            public record Person(String name, int age) {
+              public static final class Builder {
+                private static final int DEFAULT_AGE = 18;
+
+                private String name;
+
+                private int age;
+
+                public Builder setName(String name) {
+                  this.name = name;
+                  return this;
+                }
+
+                public Builder setAge(int age) {
+                  this.age = age;
+                  return this;
+                }
+
+                public Builder adult(String name) {
+                  setAge(DEFAULT_AGE);
+                  return setName(name);
+                }
+
+                public Person build() {
+                  return new Person(name, age);
+                }
+              }
+            }
+            """);
+    PsiClass builderClass = personClass.findInnerClassByName("Builder", false);
+
+    BuilderIndex.Entry entry = BuilderIndex.of(builderClass);
+
+    assertThat(entry).isNotNull();
+    assertThat(entry.builderName()).isEqualTo("people.Person.Builder");
+    assertThat(entry.setter("setName", 1))
+        .isEqualTo(new BuilderIndex.SetterEntry("setName", 1, List.of(), List.of("name")));
+    assertThat(entry.setter("setAge", 1))
+        .isEqualTo(new BuilderIndex.SetterEntry("setAge", 1, List.of(), List.of("age")));
+    assertThat(entry.setter("adult", 1))
+        .isEqualTo(
+            new BuilderIndex.SetterEntry(
+                "adult",
+                1,
+                List.of(new BuilderIndex.Call("setAge", 1), new BuilderIndex.Call("setName", 1)),
+                List.of()));
+    assertThat(entry.assignedFields("adult", 1)).containsExactly("age", "name");
+    assertThat(entry.setter("build", 0).fields()).isEmpty();
+    assertThat(entry.setter("setName", 2)).isNull();
+    VirtualFile file = personClass.getContainingFile().getVirtualFile();
+    assertThat(BuilderIndex.hasBuilders(getProject(), file)).isTrue();
+  }
+
+  public void testAmbiguousNameNotFound() {
+    String source =
+        """
+        package people;
+
+        public record Person(String name) {
+          public abstract static class Builder {
+            public abstract Person build();
+          }
+        }
+        """;
+    myFixture.addFileToProject("first/people/Person.java", source);
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    assertThat(BuilderIndex.find("people.Person", scope).setter("build", 0)).isNotNull();
+
+    myFixture.addFileToProject("second/people/Person.java", source);
+    assertThat(BuilderIndex.find("people.Person", scope)).isNull();
+  }
+}
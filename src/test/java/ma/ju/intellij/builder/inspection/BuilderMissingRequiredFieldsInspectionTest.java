@@ -3,9 +3,27 @@ package ma.ju.intellij.builder.inspection;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.codeInspection.ex.GlobalInspectionToolWrapper;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethodCallExpression;
+import com.intellij.psi.impl.PsiManagerEx;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.testFramework.TestDataPath;
 import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import ma.ju.intellij.builder.index.BuilderIndex;
+import ma.ju.intellij.builder.psi.BuilderDescriptor;
 import org.jetbrains.annotations.NotNull;
 
 @TestDataPath("$CONTENT_ROOT/testData")
@@ -59,6 +77,319 @@ public class BuilderMissingRequiredFieldsInspectionTest
     doTest("InspectionToBuilder");
   }
 
+  public void testBatchInspection() {
+    BuilderMissingRequiredFieldsGlobalInspection inspection =
+        new BuilderMissingRequiredFieldsGlobalInspection();
+    myFixture.testInspection("global", new GlobalInspectionToolWrapper(inspection));
+  }
+
+  public void testSetterInBranchDetectedWithControlFlow() {
+    PsiMethodCallExpression build = findBuild(myFixture.configureByFile("InspectionBranch.java"));
+
+    BuilderMissingRequiredFieldsInspection inspection =
+        new BuilderMissingRequiredFieldsInspection();
+    assertThat(inspection.findMissingFields(build)).isEmpty();
+    inspection.useControlFlowAnalysis = true;
+    assertThat(inspection.findMissingFields(build)).containsExactly("name");
+  }
+
+  public void testSetterInEveryBranchAcceptedWithControlFlow() {
+    PsiMethodCallExpression build = findBuild(myFixture.configureByFile("InspectionBranches.java"));
+
+    BuilderMissingRequiredFieldsInspection inspection =
+        new BuilderMissingRequiredFieldsInspection();
+    inspection.useControlFlowAnalysis = true;
+    assertThat(inspection.findMissingFields(build)).isEmpty();
+  }
+
+  public void testSummaryRecomputedWhenCalleeFileChanges() {
+    PsiFile helper =
+        myFixture.addFileToProject(
+            "Helper.java",
+            """
+            public class Helper {
+              static void fill(Person.Builder builder) {
+                builder.setName("Peter Pan");
+              }
+            }
+            """);
+    myFixture.addClass(
+        """
+        public record Person(String name) {
+          public static final class Builder {
+            private String name;
+
+            public Builder setName(String name) {
+              this.name = name;
+              return this;
+            }
+
+            public Person build() {
+              return new Person(name);
+            }
+          }
+        }
+        """);
+    PsiMethodCallExpression build =
+        findBuild(
+            myFixture.configureByText(
+                "Caller.java",
+                """
+                public class Caller {
+                  Person create() {
+                    Person.Builder builder = new Person.Builder();
+                    Helper.fill(builder);
+                    return builder.build();
+                  }
+                }
+                """));
+
+    BuilderMissingRequiredFieldsInspection inspection =
+        new BuilderMissingRequiredFieldsInspection();
+    assertThat(inspection.findMissingFields(build)).isEmpty();
+
+    PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+    Document document = documentManager.getDocument(helper);
+    WriteCommandAction.runWriteCommandAction(
+        getProject(),
+        () -> {
+          String setter = "builder.setName(\"Peter Pan\");";
+          int offset = document.getText().indexOf(setter);
+          document.deleteString(offset, offset + setter.length());
+          documentManager.commitDocument(document);
+        });
+    assertThat(inspection.findMissingFields(build)).containsExactly("name");
+  }
+
+  public void testDescriptorReadWithoutLoadingBuilderFile() {
+    PsiFile personFile =
+        myFixture.addFileToProject(
+            "people/Person.java",
+            """
+            package people;
+
+            public record Person(String name, String nickname) {
+              public static final class Builder {
+                private String name;
+
+                private String nickname;
+
+                public Builder setName(String name) {
+                  this.name = name;
+                  return this;
+                }
+
+                public Builder setNickname(String nickname) {
+                  this.nickname = nickname;
+                  return this;
+                }
+
+                public Builder named(String name) {
+                  setNickname(name);
+                  return setName(name);
+                }
+
+                public Person build() {
+                  return new Person(name, nickname);
+                }
+              }
+            }
+            """);
+    VirtualFile file = personFile.getVirtualFile();
+    // index the file before any tree loading is reported
+    assertThat(BuilderIndex.hasBuilders(getProject(), file)).isTrue();
+    PsiManagerEx.getInstanceEx(getProject())
+        .setAssertOnFileLoadingFilter(file::equals, getTestRootDisposable());
+
+    PsiClass builderClass =
+        JavaPsiFacade.getInstance(getProject())
+            .findClass("people.Person.Builder", GlobalSearchScope.allScope(getProject()));
+    BuilderDescriptor descriptor =
+        BuilderMissingRequiredFieldsInspection.descriptorFor(builderClass);
+
+    assertThat(descriptor.fields().keySet()).containsExactlyInAnyOrder("name", "nickname");
+    assertThat(descriptor.methods().get("name").getName()).isEqualTo("setName");
+    assertThat(descriptor.methods().get("nickname").getName()).isEqualTo("setNickname");
+  }
+
+  public void testNothingReportedOverNodeBudget() {
+    PsiMethodCallExpression build =
+        findBuild(myFixture.configureByText("Chain.java", chainSource(25)));
+
+    BuilderMissingRequiredFieldsInspection inspection =
+        new BuilderMissingRequiredFieldsInspection();
+    assertThat(inspection.findMissingFields(build)).containsExactly("f25");
+    inspection.maxVisitedNodes = 10;
+    assertThat(inspection.findMissingFields(build)).isEmpty();
+  }
+
+  public void testNothingReportedOverSummaryBudget() {
+    String values =
+        String.join(
+            ", ",
+            Collections.nCopies(
+                BuilderMissingRequiredFieldsInspection.SUMMARY_MAX_VISITED_NODES, "\"value\""));
+    myFixture.addClass(
+        """
+        public class Helper {
+          static void fill(Person.Builder builder) {
+            builder.setName("Peter Pan");
+          }
+
+          static void fillWithValues(Person.Builder builder) {
+            builder.setName("Peter Pan");
+            values(%s);
+          }
+
+          static void values(String... values) {}
+        }
+        """
+            .formatted(values));
+    myFixture.addClass(
+        """
+        public record Person(String name, String nickname) {
+          public static final class Builder {
+            private String name;
+            private String nickname;
+
+            public Builder setName(String name) {
+              this.name = name;
+              return this;
+            }
+
+            public Builder setNickname(String nickname) {
+              this.nickname = nickname;
+              return this;
+            }
+
+            public Person build() {
+              return new Person(name, nickname);
+            }
+          }
+        }
+        """);
+    PsiFile caller =
+        myFixture.configureByText(
+            "Caller.java",
+            """
+            public class Caller {
+              Person create() {
+                Person.Builder builder = new Person.Builder();
+                Helper.fill(builder);
+                return builder.build();
+              }
+
+              Person createWithValues() {
+                Person.Builder builder = new Person.Builder();
+                Helper.fillWithValues(builder);
+                return builder.build();
+              }
+            }
+            """);
+    List<PsiMethodCallExpression> builds =
+        PsiTreeUtil.findChildrenOfType(caller, PsiMethodCallExpression.class).stream()
+            .filter(it -> "build".equals(it.getMethodExpression().getReferenceName()))
+            .toList();
+
+    BuilderMissingRequiredFieldsInspection inspection =
+        new BuilderMissingRequiredFieldsInspection();
+    assertThat(inspection.findMissingFields(builds.get(0))).containsExactly("nickname");
+    // the summary of fillWithValues exceeds its budget, so the fields it assigns are unknown
+    assertThat(inspection.findMissingFields(builds.get(1))).isEmpty();
+  }
+
+  public void testAnalysisAllocationsGrowLinearly() {
+    long small = measureAnalysisAllocations(25);
+    long large = measureAnalysisAllocations(200);
+    // 8 times the setters may at most cost 20 times the allocations. Materialising the text of
+    // every visited node of a setter chain is quadratic and allocates over 60 times as much.
+    assertThat(large).isLessThan(small * 20);
+  }
+
+  /**
+   * Returns the bytes allocated by analysing a {@code build()} call preceded by a chain of the
+   * given number of setters. One field of the builder is never set so every node is visited.
+   */
+  private long measureAnalysisAllocations(int setters) {
+    PsiFile file = myFixture.configureByText("Chain" + setters + ".java", chainSource(setters));
+    List<PsiMethodCallExpression> calls =
+        new ArrayList<>(PsiTreeUtil.findChildrenOfType(file, PsiMethodCallExpression.class));
+    // resolve the innermost calls first to keep the resolve recursion shallow
+    for (int i = calls.size() - 1; i >= 0; i--) {
+      calls.get(i).resolveMethod();
+    }
+    PsiMethodCallExpression build =
+        calls.stream()
+            .filter(it -> "build".equals(it.getMethodExpression().getReferenceName()))
+            .findFirst()
+            .orElseThrow();
+
+    BuilderMissingRequiredFieldsInspection inspection =
+        new BuilderMissingRequiredFieldsInspection();
+    assertThat(inspection.findMissingFields(build)).containsExactly("f" + setters);
+
+    ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long allocated = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      long before = threadMXBean.getCurrentThreadAllocatedBytes();
+      inspection.findMissingFields(build);
+      allocated = Math.min(allocated, threadMXBean.getCurrentThreadAllocatedBytes() - before);
+    }
+    return allocated;
+  }
+
+  private static PsiMethodCallExpression findBuild(PsiFile file) {
+    return PsiTreeUtil.findChildrenOfType(file, PsiMethodCallExpression.class).stream()
+        .filter(it -> "build".equals(it.getMethodExpression().getReferenceName()))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static String chainSource(int setters) {
+    StringBuilder components = new StringBuilder();
+    StringBuilder fields = new StringBuilder();
+    StringBuilder methods = new StringBuilder();
+    StringBuilder chain = new StringBuilder("Big.builder()");
+    for (int i = 0; i <= setters; i++) {
+      String name = "f" + i;
+      components.append(i > 0 ? ", " : "").append("String ").append(name);
+      fields.append("private String ").append(name).append(";\n");
+      methods
+          .append("public Builder set")
+          .append(name.toUpperCase())
+          .append("(String value) { this.")
+          .append(name)
+          .append(" = value; return this; }\n");
+      if (i < setters) {
+        chain.append(".set").append(name.toUpperCase()).append("(\"value\")");
+      }
+    }
+    return """
+        public class Chain {
+          public Big create() {
+            return %s.build();
+          }
+
+          public record Big(%s) {
+            public static Builder builder() {
+              return new Builder();
+            }
+
+            public static final class Builder {
+              %s
+              private Builder() {}
+
+              %s
+              public Big build() {
+                return null;
+              }
+            }
+          }
+        }
+        """
+        .formatted(chain, components, fields, methods);
+  }
+
   protected void doTest(@NotNull String testName) {
     doTest(testName, "");
   }
@@ -0,0 +1,275 @@
+package ma.ju.intellij.builder.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import ma.ju.intellij.builder.ide.BuilderOption;
+import ma.ju.intellij.builder.inspection.BuilderMissingRequiredFieldsInspection;
+import ma.ju.intellij.builder.inspection.InspectionBundle;
+import ma.ju.intellij.builder.psi.BuilderGenerator;
+import ma.ju.intellij.builder.psi.BuilderSettings;
+
+/**
+ * Times generation, deletion and highlighting on synthetic sources far larger than the fixture
+ * tests use. Each measurement fails when it exceeds its baseline in {@code baselines.properties},
+ * which the platform scales by the speed of the machine running the test.
+ */
+public class BuilderPerformanceTest extends LightJavaCodeInsightFixtureTestCase {
+  private static final int[] SIZES = {10, 100, 500};
+  private static final int CALL_SITES = 1000;
+  private static final int ATTEMPTS = 3;
+  private static final String HIGHLIGHT_NAME =
+      InspectionBundle.message("inspection.record.builder.missing.required.display.name");
+  private static final BuilderSettings SETTINGS =
+      new BuilderSettings(
+          EnumSet.of(
+              BuilderOption.NEW_BUILDER_METHOD,
+              BuilderOption.STATIC_BUILDER_DROPDOWN,
+              BuilderOption.STATIC_BUILDER_BUILDER_NAME,
+              BuilderOption.TO_BUILDER_COPY_CONSTRUCTOR,
+              BuilderOption.BUILDER_METHOD_PREFIX_DROPDOWN,
+              BuilderOption.BUILDER_METHOD_PREFIX_SET,
+              BuilderOption.NULL_HANDLING,
+              BuilderOption.NULL_HANDLING_REQUIRED,
+              BuilderOption.WITH_IMMUTABLE_COLLECTIONS,
+              BuilderOption.WITH_JAVADOC));
+
+  private static Properties baselines;
+
+  public void testGenerateRecord() {
+    for (int size : SIZES) {
+      timeGenerate("record", size, recordSource(size));
+    }
+  }
+
+  public void testGeneratePojo() {
+    for (int size : SIZES) {
+      timeGenerate("pojo", size, pojoSource(size));
+    }
+  }
+
+  public void testGenerateInterface() {
+    for (int size : SIZES) {
+      timeGenerate("interface", size, interfaceSource(size));
+    }
+  }
+
+  public void testDeleteRecord() {
+    for (int size : SIZES) {
+      timeDelete("record", size, recordSource(size));
+    }
+  }
+
+  public void testDeletePojo() {
+    for (int size : SIZES) {
+      timeDelete("pojo", size, pojoSource(size));
+    }
+  }
+
+  public void testDeleteInterface() {
+    for (int size : SIZES) {
+      timeDelete("interface", size, interfaceSource(size));
+    }
+  }
+
+  public void testHighlightCallSites() {
+    myFixture.enableInspections(new BuilderMissingRequiredFieldsInspection());
+    myFixture.configureByText("CallSites.java", callSitesSource(CALL_SITES));
+    PlatformTestUtil.startPerformanceTest(
+            "highlight " + CALL_SITES + " call sites",
+            baseline("highlight." + CALL_SITES),
+            () -> {
+              List<HighlightInfo> problems =
+                  myFixture.doHighlighting().stream()
+                      .filter(
+                          it ->
+                              it.getDescription() != null
+                                  && it.getDescription().startsWith(HIGHLIGHT_NAME))
+                      .toList();
+              assertThat(problems).hasSize(CALL_SITES / 2);
+            })
+        .setup(() -> PsiManager.getInstance(getProject()).dropPsiCaches())
+        .attempts(ATTEMPTS)
+        .assertTiming();
+  }
+
+  private void timeGenerate(String kind, int size, String source) {
+    AtomicReference<PsiClass> target = new AtomicReference<>();
+    PlatformTestUtil.startPerformanceTest(
+            "generate " + kind + " " + size,
+            baseline("generate." + kind + "." + size),
+            () ->
+                WriteCommandAction.runWriteCommandAction(
+                    getProject(), () -> BuilderGenerator.generate(target.get(), SETTINGS)))
+        .setup(() -> target.set(configure(kind, size, source)))
+        .attempts(ATTEMPTS)
+        .assertTiming();
+  }
+
+  private void timeDelete(String kind, int size, String source) {
+    AtomicReference<PsiClass> target = new AtomicReference<>();
+    PlatformTestUtil.startPerformanceTest(
+            "delete " + kind + " " + size,
+            baseline("delete." + kind + "." + size),
+            () ->
+                WriteCommandAction.runWriteCommandAction(
+                    getProject(),
+                    () ->
+                        BuilderGenerator.delete(
+                            target.get(), BuilderGenerator.getComponents(target.get()), SETTINGS)))
+        .setup(
+            () -> {
+              PsiClass psiClass = configure(kind, size, source);
+              WriteCommandAction.runWriteCommandAction(
+                  getProject(), () -> BuilderGenerator.generate(psiClass, SETTINGS));
+              // the builder of an interface is generated into a record nested in it
+              target.set(
+                  psiClass.isInterface()
+                      ? psiClass.findInnerClassByName(psiClass.getName() + "Record", false)
+                      : psiClass);
+            })
+        .attempts(ATTEMPTS)
+        .assertTiming();
+  }
+
+  private PsiClass configure(String kind, int size, String source) {
+    String name = Character.toUpperCase(kind.charAt(0)) + kind.substring(1) + size;
+    PsiJavaFile file = (PsiJavaFile) myFixture.configureByText(name + ".java", source);
+    return file.getClasses()[0];
+  }
+
+  private static int baseline(String key) {
+    if (baselines == null) {
+      Properties properties = new Properties();
+      try (InputStream in =
+          BuilderPerformanceTest.class.getResourceAsStream("/performance/baselines.properties")) {
+        assertThat(in).as("performance baselines").isNotNull();
+        properties.load(in);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      baselines = properties;
+    }
+    String value = baselines.getProperty(key);
+    assertThat(value).as("baseline of " + key).isNotNull();
+    return Integer.parseInt(value.trim());
+  }
+
+  private static String typeOf(int index) {
+    return switch (index % 4) {
+      case 0 -> "String";
+      case 1 -> "int";
+      case 2 -> "List<String>";
+      default -> "@Nullable Long";
+    };
+  }
+
+  private static String recordSource(int size) {
+    StringBuilder components = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      components.append(i > 0 ? ",\n    " : "").append(typeOf(i)).append(" f").append(i);
+    }
+    return """
+        import java.util.List;
+        import org.jetbrains.annotations.Nullable;
+
+        public record Record%d(
+            %s) {}
+        """
+        .formatted(size, components);
+  }
+
+  private static String pojoSource(int size) {
+    StringBuilder fields = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      fields.append("  private final ").append(typeOf(i)).append(" f").append(i).append(";\n");
+    }
+    return """
+        import java.util.List;
+        import org.jetbrains.annotations.Nullable;
+
+        public class Pojo%d {
+        %s}
+        """
+        .formatted(size, fields);
+  }
+
+  private static String interfaceSource(int size) {
+    StringBuilder methods = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      methods.append("  ").append(typeOf(i)).append(" f").append(i).append("();\n");
+    }
+    return """
+        import java.util.List;
+        import org.jetbrains.annotations.Nullable;
+
+        public interface Interface%d {
+        %s}
+        """
+        .formatted(size, methods);
+  }
+
+  /**
+   * Returns a file with the given number of {@code build()} calls on a builder with ten required
+   * fields. Every other call leaves the first field unset.
+   */
+  private static String callSitesSource(int callSites) {
+    int fieldCount = 10;
+    StringBuilder components = new StringBuilder();
+    StringBuilder arguments = new StringBuilder();
+    StringBuilder fields = new StringBuilder();
+    StringBuilder setters = new StringBuilder();
+    for (int i = 0; i < fieldCount; i++) {
+      components.append(i > 0 ? ", " : "").append("String f").append(i);
+      arguments.append(i > 0 ? ", " : "").append("f").append(i);
+      fields.append("private String f").append(i).append(";\n");
+      setters
+          .append("public Builder setF")
+          .append(i)
+          .append("(String value) { this.f")
+          .append(i)
+          .append(" = value; return this; }\n");
+    }
+    StringBuilder methods = new StringBuilder();
+    for (int site = 0; site < callSites; site++) {
+      methods.append("Big create").append(site).append("() {\n  return Big.builder()");
+      for (int i = site % 2; i < fieldCount; i++) {
+        methods.append(".setF").append(i).append("(\"value\")");
+      }
+      methods.append(".build();\n}\n");
+    }
+    return """
+        public class CallSites {
+          %s
+          public record Big(%s) {
+            public static Builder builder() {
+              return new Builder();
+            }
+
+            public static final class Builder {
+              %s
+              private Builder() {}
+
+              %s
+              public Big build() {
+                return new Big(%s);
+              }
+            }
+          }
+        }
+        """
+        .formatted(methods, components, fields, setters, arguments);
+  }
+}
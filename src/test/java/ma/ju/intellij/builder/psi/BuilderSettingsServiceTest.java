@@ -0,0 +1,105 @@
+package ma.ju.intellij.builder.psi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import java.util.ArrayList;
+import java.util.List;
+import ma.ju.intellij.builder.ide.BuilderOption;
+
+public class BuilderSettingsServiceTest extends LightJavaCodeInsightFixtureTestCase {
+  private BuilderSettingsService service;
+  private final List<BuilderSettings> published = new ArrayList<>();
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    service = new BuilderSettingsService(getProject());
+    getProject()
+        .getMessageBus()
+        .connect(getTestRootDisposable())
+        .subscribe(BuilderSettingsService.TOPIC, published::add);
+  }
+
+  public void testLoadStateSkipsUnknownOptions() {
+    BuilderSettingsService.OptionsState state = new BuilderSettingsService.OptionsState();
+    state.options.add(BuilderOption.WITH_JAVADOC.name());
+    state.options.add("REMOVED_OPTION");
+    long count = service.getModificationCount();
+
+    service.loadState(state);
+
+    assertThat(service.settings().options()).containsExactly(BuilderOption.WITH_JAVADOC);
+    assertThat(service.getModificationCount()).isGreaterThan(count);
+  }
+
+  public void testLoadStatePublishesChanges() {
+    BuilderSettingsService.OptionsState state = new BuilderSettingsService.OptionsState();
+    state.options.add(BuilderOption.WITH_JAVADOC.name());
+
+    service.loadState(state);
+
+    assertThat(published).containsExactly(service.settings());
+
+    long count = service.getModificationCount();
+    service.loadState(state);
+
+    assertThat(service.getModificationCount()).isEqualTo(count);
+    assertThat(published).hasSize(1);
+  }
+
+  public void testSetEnabledPublishesChanges() {
+    long count = service.getModificationCount();
+
+    service.setEnabled(BuilderOption.WITH_JAVADOC, true);
+
+    assertThat(service.settings().generateJavaDoc()).isTrue();
+    assertThat(service.getModificationCount()).isGreaterThan(count);
+    assertThat(published).containsExactly(service.settings());
+
+    count = service.getModificationCount();
+    service.setEnabled(BuilderOption.WITH_JAVADOC, true);
+
+    assertThat(service.getModificationCount()).isEqualTo(count);
+    assertThat(published).hasSize(1);
+  }
+
+  public void testSelectReplacesValue() {
+    List<BuilderOption> prefixes =
+        List.of(
+            BuilderOption.BUILDER_METHOD_PREFIX_SET,
+            BuilderOption.BUILDER_METHOD_PREFIX_WITH,
+            BuilderOption.BUILDER_METHOD_PREFIX_NONE);
+    service.select(prefixes, BuilderOption.BUILDER_METHOD_PREFIX_SET);
+    long count = service.getModificationCount();
+
+    service.select(prefixes, BuilderOption.BUILDER_METHOD_PREFIX_WITH);
+
+    assertThat(service.settings().methodPrefix()).isEqualTo("with");
+    assertThat(service.settings().options())
+        .doesNotContain(BuilderOption.BUILDER_METHOD_PREFIX_SET);
+    assertThat(service.getModificationCount()).isGreaterThan(count);
+    assertThat(published).hasSize(2).last().isSameAs(service.settings());
+  }
+
+  public void testMigratesLegacyOptionsOnce() {
+    PropertiesComponent properties = PropertiesComponent.getInstance();
+    String property = BuilderOption.WITH_JAVADOC.property();
+    properties.setValue(property, true);
+    try {
+      service.noStateLoaded();
+
+      assertThat(service.settings().generateJavaDoc()).isTrue();
+    } finally {
+      properties.unsetValue(property);
+    }
+
+    // with every option disabled the saved state still differs from the default one, so it is
+    // persisted and loaded on the next start instead of migrating again
+    service.setEnabled(BuilderOption.WITH_JAVADOC, false);
+    BuilderSettingsService.OptionsState state = service.getState();
+    assertThat(state.options).isEmpty();
+    assertThat(state.migrated).isTrue();
+  }
+}
@@ -0,0 +1,92 @@
+package ma.ju.intellij.builder.psi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.impl.PsiManagerEx;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import com.squareup.javapoet.TypeName;
+
+public class FieldTest extends LightJavaCodeInsightFixtureTestCase {
+
+  public void testSignature() {
+    PsiClass personClass =
+        myFixture.addClass(
+            """
+            package people;
+
+            public class Person {
+              @Deprecated final  private String name;
+              int age;
+            }
+            """);
+
+    assertThat(Field.of(personClass.findFieldByName("name", false)).signature())
+        .isEqualTo("people.Person {@java.lang.Deprecated private final java.lang.String name}");
+    assertThat(Field.of(personClass.findFieldByName("age", false)).signature())
+        .isEqualTo("people.Person { int age}");
+  }
+
+  public void testEqualsAndHashCode() {
+    PsiClass personClass =
+        myFixture.addClass(
+            """
+            package people;
+
+            public class Person {
+              private String name;
+              private String nickname;
+            }
+            """);
+    Field name = Field.of(personClass.findFieldByName("name", false));
+
+    Field same = Field.of(personClass.findFieldByName("name", false));
+    assertThat(same).isEqualTo(name);
+    assertThat(same.hashCode()).isEqualTo(name.hashCode());
+    assertThat(Field.of(personClass.findFieldByName("nickname", false))).isNotEqualTo(name);
+    assertThat(new Field(name.source(), personClass, name.type(), TypeName.OBJECT))
+        .isNotEqualTo(name);
+  }
+
+  public void testSignatureReadFromStubs() {
+    PsiFile file =
+        myFixture.addFileToProject(
+            "people/Person.java",
+            """
+            package people;
+
+            public class Person {
+              @Deprecated
+              private final String name = null;
+            }
+            """);
+    VirtualFile virtualFile = file.getVirtualFile();
+    PsiManagerEx.getInstanceEx(getProject())
+        .setAssertOnFileLoadingFilter(virtualFile::equals, getTestRootDisposable());
+
+    PsiClass personClass =
+        JavaPsiFacade.getInstance(getProject())
+            .findClass("people.Person", GlobalSearchScope.allScope(getProject()));
+
+    assertThat(Field.of(personClass.findFieldByName("name", false)).signature())
+        .isEqualTo("people.Person {@java.lang.Deprecated private final java.lang.String name}");
+  }
+
+  public void testIsClassName() {
+    assertThat(Field.isClassName("java.util.List")).isTrue();
+    assertThat(Field.isClassName("java.util.Map.Entry")).isTrue();
+    assertThat(Field.isClassName("List")).isTrue();
+    assertThat(Field.isClassName("T")).isTrue();
+
+    assertThat(Field.isClassName("")).isFalse();
+    assertThat(Field.isClassName("java.util")).isFalse();
+    assertThat(Field.isClassName("java..List")).isFalse();
+    assertThat(Field.isClassName("java.util.List.")).isFalse();
+    assertThat(Field.isClassName("java.util.List.entry")).isFalse();
+    assertThat(Field.isClassName("int")).isFalse();
+  }
+}
@@ -0,0 +1,41 @@
+package ma.ju.intellij.builder.psi;
+
+import java.util.List;
+
+public record NullCheckedCopies(List<String> names) {
+  public NullCheckedCopies {
+    names = names == null ? null : List.copyOf(names);
+  }
+
+  @java.lang.Override
+  public java.lang.String toString() {
+    return getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(this));
+  }
+
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    private List<String> names;
+
+    private Builder() {}
+
+    private Builder(NullCheckedCopies record) {
+      this.names = record.names;
+    }
+
+    public Builder setNames(List<String> names) {
+      this.names = names;
+      return this;
+    }
+
+    public NullCheckedCopies build() {
+      return new NullCheckedCopies(this.names);
+    }
+  }
+}
@@ -0,0 +1,5 @@
+package ma.ju.intellij.builder.psi;
+
+import java.util.List;
+
+public record NullCheckedCopies(List<String> names) {}